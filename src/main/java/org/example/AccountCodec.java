@@ -0,0 +1,70 @@
+package org.example;
+
+import org.example.model.Account;
+import org.example.model.CardDetail;
+import org.example.model.Product;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of finished accounts, used for files that only this application reads back.
+ * Strings are written as modified UTF-8 with a presence flag, lists as an int count followed by their items.
+ */
+final class AccountCodec {
+    private AccountCodec() {
+    }
+
+    public static void writeAccount(DataOutput out, Account account) throws IOException {
+        writeString(out, account.getAccountNumber());
+        out.writeInt(account.getProducts().size());
+        for (Product product : account.getProducts()) {
+            writeString(out, product.getName());
+            writeString(out, product.getTotalBalance());
+            out.writeInt(product.getDetails().size());
+            for (CardDetail detail : product.getDetails()) {
+                writeDetail(out, detail);
+            }
+        }
+    }
+
+    public static Account readAccount(DataInput in) throws IOException {
+        String accountNumber = readString(in);
+        int productCount = in.readInt();
+        List<Product> products = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            String name = readString(in);
+            String totalBalance = readString(in);
+            products.add(new Product(name, totalBalance, readDetails(in, in.readInt())));
+        }
+        return new Account(accountNumber, products);
+    }
+
+    public static void writeDetail(DataOutput out, CardDetail detail) throws IOException {
+        writeString(out, detail.getCardNumber());
+        writeString(out, detail.getBalance());
+        writeString(out, detail.getExpireDate());
+    }
+
+    public static List<CardDetail> readDetails(DataInput in, int count) throws IOException {
+        List<CardDetail> details = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            details.add(new CardDetail(readString(in), readString(in), readString(in)));
+        }
+        return details;
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    public static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,83 @@
+package org.example;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Where each account of a JSON output file starts and ends, written next to it as {@code <output file>.idx}
+ * so that {@link AccountLookup} can read one account without parsing the rest of the file.
+ * The file is a header, fixed-size entries sorted by account number for binary search, and the account numbers:
+ * <pre>
+ * header:  int magic, int version, long output file size, int entry count, int account number bytes
+ * entries: int account number start, int account number length, long account offset, int account length
+ * then:    the UTF-8 account numbers, one after the other
+ * </pre>
+ * An account's bytes may start with the separator and indentation written before it in the accounts array.
+ */
+class AccountIndex {
+    static final String SUFFIX = ".idx";
+    static final int MAGIC = 0x52444958; // "RDIX"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int ENTRY_BYTES = 20;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private long outputBytes;
+
+    private record Entry(byte[] accountNumber, long offset, int length) {}
+
+    static Path pathFor(Path outputPath) {
+        return outputPath.resolveSibling(outputPath.getFileName() + SUFFIX);
+    }
+
+    public void add(String accountNumber, long offset, long length) {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Account " + accountNumber + " is too large to index");
+        }
+        entries.add(new Entry(accountNumber.getBytes(StandardCharsets.UTF_8), offset, (int) length));
+    }
+
+    /**
+     * Records the size of the complete output file, which lookups check to detect an index left from another run.
+     */
+    public void setOutputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+    }
+
+    /**
+     * Writes the index of an output file next to it.
+     */
+    public void writeFor(Path outputPath, OutputFiles outputFiles) throws IOException {
+        entries.sort((a, b) -> Arrays.compareUnsigned(a.accountNumber(), b.accountNumber()));
+        int accountNumberBytes = 0;
+        for (Entry entry : entries) {
+            accountNumberBytes += entry.accountNumber().length;
+        }
+        int totalAccountNumberBytes = accountNumberBytes;
+        outputFiles.write(pathFor(outputPath), out -> {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(MAGIC);
+            data.writeInt(VERSION);
+            data.writeLong(outputBytes);
+            data.writeInt(entries.size());
+            data.writeInt(totalAccountNumberBytes);
+            int start = 0;
+            for (Entry entry : entries) {
+                data.writeInt(start);
+                data.writeInt(entry.accountNumber().length);
+                data.writeLong(entry.offset());
+                data.writeInt(entry.length());
+                start += entry.accountNumber().length;
+            }
+            for (Entry entry : entries) {
+                data.write(entry.accountNumber());
+            }
+            data.flush();
+        });
+    }
+}
@@ -0,0 +1,159 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.example.model.Account;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Reads single accounts from a JSON output file through the {@link AccountIndex} written next to it.
+ * The index is memory-mapped and binary-searched, and only the bytes of the requested account are read
+ * and deserialized. Safe to share between threads.
+ * Run from the command line, it prints the requested accounts as indented JSON:
+ * {@code java -cp rearrange-data.jar org.example.AccountLookup aggregated-result.json 1234567890123 [...]}
+ */
+public class AccountLookup implements AutoCloseable {
+    private static final ObjectReader ACCOUNT_READER = JsonMappers.JSON.readerFor(Account.class);
+
+    private final Path outputPath;
+    private final FileChannel output;
+    private final ByteBuffer index;
+    private final int entryCount;
+    private final int accountNumbersStart;
+
+    private AccountLookup(Path outputPath, FileChannel output, ByteBuffer index) throws IOException {
+        this.outputPath = outputPath;
+        this.output = output;
+        this.index = index;
+        if (index.limit() < AccountIndex.HEADER_BYTES || index.getInt(0) != AccountIndex.MAGIC) {
+            throw new IOException(AccountIndex.pathFor(outputPath) + " is not an account index");
+        }
+        if (index.getInt(4) != AccountIndex.VERSION) {
+            throw new IOException("Unsupported account index version " + index.getInt(4));
+        }
+        if (index.getLong(8) != output.size()) {
+            throw new IOException("The index of " + outputPath + " was written for a different version of the file");
+        }
+        this.entryCount = index.getInt(16);
+        this.accountNumbersStart = AccountIndex.HEADER_BYTES + entryCount * AccountIndex.ENTRY_BYTES;
+    }
+
+    /**
+     * Opens an output file and maps its index.
+     * @throws IOException If either file is missing, or the index does not belong to the file as it is now.
+     */
+    public static AccountLookup open(Path outputPath) throws IOException {
+        FileChannel output = FileChannel.open(outputPath, StandardOpenOption.READ);
+        try (FileChannel indexChannel = FileChannel.open(AccountIndex.pathFor(outputPath), StandardOpenOption.READ)) {
+            ByteBuffer index = indexChannel.map(FileChannel.MapMode.READ_ONLY, 0, indexChannel.size());
+            return new AccountLookup(outputPath, output, index);
+        } catch (IOException | RuntimeException e) {
+            output.close();
+            throw e;
+        }
+    }
+
+    public int accountCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return The account, or empty if the file holds no account with this number.
+     */
+    public Optional<Account> find(String accountNumber) throws IOException {
+        int entry = search(accountNumber.getBytes(StandardCharsets.UTF_8));
+        if (entry < 0) {
+            return Optional.empty();
+        }
+        int entryStart = AccountIndex.HEADER_BYTES + entry * AccountIndex.ENTRY_BYTES;
+        long offset = index.getLong(entryStart + 8);
+        byte[] bytes = new byte[index.getInt(entryStart + 16)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (output.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException(outputPath + " ends before account " + accountNumber);
+            }
+        }
+        int objectStart = 0;
+        while (objectStart < bytes.length && bytes[objectStart] != '{') {
+            objectStart++; // Skip the array separator and indentation
+        }
+        Account account = ACCOUNT_READER.readValue(bytes, objectStart, bytes.length - objectStart);
+        if (!accountNumber.equals(account.getAccountNumber())) {
+            throw new IOException("The index of " + outputPath + " points at account " + account.getAccountNumber()
+                    + " instead of " + accountNumber);
+        }
+        return Optional.of(account);
+    }
+
+    /**
+     * @return The entry of the account number, or -1.
+     */
+    private int search(byte[] accountNumber) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareAccountNumber(middle, accountNumber);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the account number of an entry with the given one as unsigned bytes, the order the index is sorted in.
+     */
+    private int compareAccountNumber(int entry, byte[] accountNumber) {
+        int entryStart = AccountIndex.HEADER_BYTES + entry * AccountIndex.ENTRY_BYTES;
+        int start = accountNumbersStart + index.getInt(entryStart);
+        int length = index.getInt(entryStart + 4);
+        for (int i = 0; i < Math.min(length, accountNumber.length); i++) {
+            int comparison = Byte.compareUnsigned(index.get(start + i), accountNumber[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, accountNumber.length);
+    }
+
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: AccountLookup <output file> <account number>...");
+            System.exit(1);
+        }
+        Path outputPath = Paths.get(args[0]);
+        if (!Files.exists(AccountIndex.pathFor(outputPath))) {
+            System.err.println("❌ " + outputPath + " has no index. Write it with <OutputIndex>true</OutputIndex>.");
+            System.exit(1);
+        }
+        try (AccountLookup lookup = open(outputPath)) {
+            for (int i = 1; i < args.length; i++) {
+                Optional<Account> account = lookup.find(args[i]);
+                if (account.isPresent()) {
+                    System.out.println(JsonMappers.JSON.writeValueAsString(account.get()));
+                } else {
+                    System.err.println("🟡 No account " + args[i] + " in " + outputPath);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.example;
+
+import org.example.model.Account;
+
+import java.util.Iterator;
+
+/**
+ * A contiguous run of accounts in account number order, written as one output shard.
+ * @param accountTotal The number of accounts the iterator will produce.
+ */
+record AccountRange(int accountTotal, Iterator<Account> accounts) {}
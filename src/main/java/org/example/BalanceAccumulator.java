@@ -0,0 +1,166 @@
+package org.example;
+
+import java.math.BigDecimal;
+
+/**
+ * Sums decimal balance strings without allocating a BigDecimal per value.
+ * Plain decimals such as "55.24" are parsed straight into a long scaled by the largest number of
+ * fraction digits seen so far. Anything the fast path cannot represent exactly (exponents, more than
+ * 18 digits, or a sum that overflows a long) switches the accumulator to BigDecimal arithmetic,
+ * so the result always equals summing {@code new BigDecimal(balance)} values with {@link BigDecimal#add}.
+ */
+public final class BalanceAccumulator {
+    private static final int MAX_FAST_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_FAST_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private long unscaled;
+    private int scale;
+    // Only set once the fast path has been given up
+    private BigDecimal slowSum;
+
+    /**
+     * Adds one balance string.
+     * @throws NumberFormatException If the string is not a valid BigDecimal representation.
+     */
+    public void add(String balance) {
+        if (slowSum == null && balance != null && addFast(balance)) {
+            return;
+        }
+        addSlow(new BigDecimal(balance));
+    }
+
+    /**
+     * Adds the running total of another accumulator.
+     */
+    public void add(BalanceAccumulator other) {
+        if (slowSum == null && other.slowSum == null) {
+            addScaled(other.unscaled, other.scale);
+        } else {
+            addSlow(other.toBigDecimal());
+        }
+    }
+
+    /**
+     * Adds a balance already parsed into an unscaled value and a scale, as the string {@code unscaled × 10^-scale}.
+     */
+    void add(long unscaled, int scale) {
+        if (slowSum == null) {
+            addScaled(unscaled, scale);
+        } else {
+            addSlow(BigDecimal.valueOf(unscaled, scale));
+        }
+    }
+
+    public BigDecimal toBigDecimal() {
+        return slowSum != null ? slowSum : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * Formats the total exactly like {@link BigDecimal#toPlainString()} of the equivalent BigDecimal sum.
+     */
+    public String toPlainString() {
+        if (slowSum != null) {
+            return slowSum.toPlainString();
+        }
+        return toPlainString(unscaled, scale);
+    }
+
+    /**
+     * Formats {@code unscaled × 10^-scale} like {@link BigDecimal#toPlainString()}.
+     */
+    static String toPlainString(long unscaled, int scale) {
+        String digits = Long.toString(unscaled);
+        if (scale == 0) {
+            return digits;
+        }
+
+        boolean negative = unscaled < 0;
+        if (negative) {
+            digits = digits.substring(1);
+        }
+        StringBuilder plain = new StringBuilder(digits.length() + scale + 3);
+        if (negative) {
+            plain.append('-');
+        }
+        int integerDigits = digits.length() - scale;
+        if (integerDigits <= 0) {
+            plain.append("0.");
+            plain.repeat('0', -integerDigits);
+            plain.append(digits);
+        } else {
+            plain.append(digits, 0, integerDigits).append('.').append(digits, integerDigits, digits.length());
+        }
+        return plain.toString();
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString();
+    }
+
+    /**
+     * Parses an optionally signed plain decimal ("-12.30", "+5", ".5", "7.") into a scaled long.
+     * @return false if the string is not in that form or does not fit, leaving the sum untouched.
+     */
+    private boolean addFast(String balance) {
+        int length = balance.length();
+        int position = 0;
+        boolean negative = false;
+        if (length > 0 && (balance.charAt(0) == '-' || balance.charAt(0) == '+')) {
+            negative = balance.charAt(0) == '-';
+            position++;
+        }
+
+        long value = 0;
+        int digitCount = 0;
+        int fractionDigits = -1;
+        for (; position < length; position++) {
+            char c = balance.charAt(position);
+            if (c >= '0' && c <= '9') {
+                if (++digitCount > MAX_FAST_DIGITS) {
+                    return false;
+                }
+                value = value * 10 + (c - '0');
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                return false;
+            }
+        }
+        if (digitCount == 0) {
+            return false;
+        }
+        addScaled(negative ? -value : value, Math.max(fractionDigits, 0));
+        return true;
+    }
+
+    private void addScaled(long value, int valueScale) {
+        try {
+            long alignedSum = unscaled;
+            long alignedValue = value;
+            if (valueScale > scale) {
+                alignedSum = Math.multiplyExact(alignedSum, POWERS_OF_TEN[valueScale - scale]);
+            } else if (valueScale < scale) {
+                alignedValue = Math.multiplyExact(alignedValue, POWERS_OF_TEN[scale - valueScale]);
+            }
+            unscaled = Math.addExact(alignedSum, alignedValue);
+            scale = Math.max(scale, valueScale);
+        } catch (ArithmeticException e) {
+            slowSum = BigDecimal.valueOf(unscaled, scale).add(BigDecimal.valueOf(value, valueScale));
+        }
+    }
+
+    private void addSlow(BigDecimal value) {
+        slowSum = toBigDecimal().add(value);
+    }
+}
@@ -0,0 +1,364 @@
+package org.example;
+
+import org.example.model.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SequencedMap;
+import java.util.function.Function;
+
+/**
+ * Groups cards by account number and product name one card at a time.
+ * Each card is folded into its product's running total and card detail list as soon
+ * as it arrives, so the original Card objects can be dropped right after reading.
+ */
+class CardAggregator implements GroupedCards {
+    // Rough heap cost of the objects held per account, product and card detail
+    private static final int ACCOUNT_OVERHEAD_BYTES = 160;
+    private static final int PRODUCT_OVERHEAD_BYTES = 160;
+    private static final int DETAIL_OVERHEAD_BYTES = 136;
+
+    private final DateConverter dateConverter;
+    private final Map<String, AccountTotals> accountsByNumber = new HashMap<>();
+    private long estimatedBytes;
+
+    public CardAggregator(DateConverter dateConverter) {
+        this.dateConverter = dateConverter;
+    }
+
+    public void add(Card card) {
+        String accountNumber = Objects.requireNonNull(card.getAccountNumber(), "element cannot be mapped to a null key");
+        String productName = Objects.requireNonNull(card.getProductName(), "element cannot be mapped to a null key");
+
+        AccountTotals account = accountsByNumber.get(accountNumber);
+        if (account == null) {
+            account = new AccountTotals();
+            accountsByNumber.put(accountNumber, account);
+            estimatedBytes += ACCOUNT_OVERHEAD_BYTES + accountNumber.length();
+        }
+        String expireDate = dateConverter.convert(card.getExpireDate()); // Convert date format
+        estimatedBytes += account.add(productName, card, expireDate);
+    }
+
+    /**
+     * An estimate of the heap held by the grouped data, used to decide when to spill to disk.
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * The number of cards added, including those of merged aggregators.
+     */
+    public long cardCount() {
+        long cardCount = 0;
+        for (AccountTotals account : accountsByNumber.values()) {
+            cardCount += account.cardCount;
+        }
+        return cardCount;
+    }
+
+    /**
+     * Merges another aggregator into this one, as if its cards had been added after the ones already here.
+     * Merging partial aggregates in input order gives exactly the output of aggregating all cards in one pass.
+     * The other aggregator must not be used afterwards.
+     */
+    public void merge(CardAggregator later) {
+        for (Map.Entry<String, AccountTotals> entry : later.accountsByNumber.entrySet()) {
+            AccountTotals account = accountsByNumber.get(entry.getKey());
+            if (account == null) {
+                accountsByNumber.put(entry.getKey(), entry.getValue());
+            } else {
+                account.merge(entry.getValue());
+            }
+        }
+        estimatedBytes += later.estimatedBytes;
+    }
+
+    /**
+     * Writes the running totals of every account to the output chosen for its account number,
+     * then empties this aggregator. The records keep enough ordering information for
+     * {@link #mergeSpilled(DataInput)} to rebuild exactly the same output.
+     */
+    public void spill(Function<String, DataOutput> outputForAccount) throws IOException {
+        for (Map.Entry<String, AccountTotals> entry : accountsByNumber.entrySet()) {
+            DataOutput out = outputForAccount.apply(entry.getKey());
+            out.writeUTF(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+        accountsByNumber.clear();
+        estimatedBytes = 0;
+    }
+
+    /**
+     * Reads one account record written by {@link #spill(Function)} and merges it in,
+     * as if its cards had been added after the ones already held for that account.
+     */
+    public void mergeSpilled(DataInput in) throws IOException {
+        String accountNumber = in.readUTF();
+        AccountTotals spilled = AccountTotals.readFrom(in);
+
+        AccountTotals account = accountsByNumber.get(accountNumber);
+        if (account == null) {
+            accountsByNumber.put(accountNumber, spilled);
+            estimatedBytes += ACCOUNT_OVERHEAD_BYTES + accountNumber.length();
+        } else {
+            account.merge(spilled);
+        }
+        estimatedBytes += spilled.estimatedBytes();
+    }
+
+    /**
+     * Writes the running totals of every account, keeping this aggregator intact.
+     * {@link #readFrom(DataInput, DateConverter)} rebuilds an aggregator that produces the same output.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(accountsByNumber.size());
+        for (Map.Entry<String, AccountTotals> entry : accountsByNumber.entrySet()) {
+            out.writeUTF(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    public static CardAggregator readFrom(DataInput in, DateConverter dateConverter) throws IOException {
+        CardAggregator aggregator = new CardAggregator(dateConverter);
+        int accountCount = in.readInt();
+        for (int i = 0; i < accountCount; i++) {
+            aggregator.mergeSpilled(in);
+        }
+        return aggregator;
+    }
+
+    public boolean isEmpty() {
+        return accountsByNumber.isEmpty();
+    }
+
+    @Override
+    public int accountCount() {
+        return accountsByNumber.size();
+    }
+
+    /**
+     * Finalizes accounts one at a time in account number order, so a writer can emit
+     * each account as soon as it is built instead of waiting for the whole output.
+     */
+    @Override
+    public Iterator<Account> accounts() {
+        return accounts(sortedAccountNumbers());
+    }
+
+    /**
+     * Splits the accounts, in account number order, into contiguous ranges of nearly equal size.
+     * Each range finalizes only its own accounts, so different threads can consume different ranges.
+     * @param rangeCount The number of ranges wanted. Fewer are returned if there are fewer accounts.
+     */
+    public List<AccountRange> accountRanges(int rangeCount) {
+        List<String> accountNumbers = sortedAccountNumbers();
+        int ranges = Math.max(1, Math.min(rangeCount, accountNumbers.size()));
+        List<AccountRange> accountRanges = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            List<String> range = accountNumbers.subList(
+                    (int) ((long) accountNumbers.size() * i / ranges), (int) ((long) accountNumbers.size() * (i + 1) / ranges));
+            accountRanges.add(new AccountRange(range.size(), accounts(range)));
+        }
+        return accountRanges;
+    }
+
+    private List<String> sortedAccountNumbers() {
+        List<String> accountNumbers = new ArrayList<>(accountsByNumber.keySet());
+        accountNumbers.sort(Comparator.naturalOrder());
+        return accountNumbers;
+    }
+
+    private Iterator<Account> accounts(List<String> sortedAccountNumbers) {
+        Iterator<String> accountNumbers = sortedAccountNumbers.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return accountNumbers.hasNext();
+            }
+
+            @Override
+            public Account next() {
+                String accountNumber = accountNumbers.next();
+                return accountsByNumber.get(accountNumber).toAccount(accountNumber);
+            }
+        };
+    }
+
+    /**
+     * Puts the products of one account into a HashMap the way Collectors.groupingBy does, with one
+     * computeIfAbsent call per new product in first-seen order. Iterating the result gives the product order
+     * of the output, including the table growth HashMap defers to the call after an overflow.
+     * @param cardAfterLastNewProduct Whether any card of the account came after its last new product,
+     *                                which is the call that performs a deferred resize.
+     */
+    static <T> Map<String, T> inGroupingOrder(SequencedMap<String, T> productsInFirstSeenOrder,
+                                              boolean cardAfterLastNewProduct) {
+        Map<String, T> productsByName = new HashMap<>();
+        for (Map.Entry<String, T> entry : productsInFirstSeenOrder.entrySet()) {
+            productsByName.computeIfAbsent(entry.getKey(), key -> entry.getValue());
+        }
+        if (cardAfterLastNewProduct) {
+            productsByName.computeIfAbsent(productsInFirstSeenOrder.firstEntry().getKey(), key -> null);
+        }
+        return productsByName;
+    }
+
+    private static long estimateDetailBytes(String cardNumber, String balance, String expireDate) {
+        return DETAIL_OVERHEAD_BYTES + length(cardNumber) + length(balance) + length(expireDate);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * The products of one account, kept in the order they were first seen.
+     */
+    private static class AccountTotals {
+        private final SequencedMap<String, ProductTotals> products = new LinkedHashMap<>();
+        private long cardCount;
+
+        /**
+         * @return The estimated number of bytes the card added.
+         */
+        long add(String productName, Card card, String expireDate) {
+            long cardIndex = cardCount++;
+            long addedBytes = 0;
+            ProductTotals totals = products.get(productName);
+            if (totals == null) {
+                totals = new ProductTotals(cardIndex);
+                products.put(productName, totals);
+                addedBytes += PRODUCT_OVERHEAD_BYTES + productName.length();
+            }
+            return addedBytes + totals.add(card, expireDate);
+        }
+
+        void merge(AccountTotals later) {
+            for (Map.Entry<String, ProductTotals> entry : later.products.entrySet()) {
+                ProductTotals laterTotals = entry.getValue();
+                ProductTotals totals = products.get(entry.getKey());
+                if (totals == null) {
+                    laterTotals.firstCardIndex += cardCount;
+                    products.put(entry.getKey(), laterTotals);
+                } else {
+                    totals.merge(laterTotals);
+                }
+            }
+            cardCount += later.cardCount;
+        }
+
+        long estimatedBytes() {
+            long bytes = 0;
+            for (Map.Entry<String, ProductTotals> entry : products.entrySet()) {
+                bytes += PRODUCT_OVERHEAD_BYTES + entry.getKey().length() + entry.getValue().estimatedBytes();
+            }
+            return bytes;
+        }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeLong(cardCount);
+            out.writeInt(products.size());
+            for (Map.Entry<String, ProductTotals> entry : products.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        }
+
+        static AccountTotals readFrom(DataInput in) throws IOException {
+            AccountTotals account = new AccountTotals();
+            account.cardCount = in.readLong();
+            int productCount = in.readInt();
+            for (int i = 0; i < productCount; i++) {
+                String productName = in.readUTF();
+                account.products.put(productName, ProductTotals.readFrom(in));
+            }
+            return account;
+        }
+
+        Account toAccount(String accountNumber) {
+            ProductTotals lastNewProduct = products.isEmpty() ? null : products.lastEntry().getValue();
+            Map<String, ProductTotals> productsByName = inGroupingOrder(products,
+                    lastNewProduct != null && lastNewProduct.firstCardIndex < cardCount - 1);
+
+            List<Product> accountProducts = new ArrayList<>(productsByName.size());
+            productsByName.forEach((productName, totals) -> accountProducts.add(totals.toProduct(productName)));
+            return new Account(accountNumber, accountProducts);
+        }
+    }
+
+    /**
+     * Running balance and card details for one product of one account.
+     */
+    private static class ProductTotals {
+        private long firstCardIndex;
+        private final BalanceAccumulator totalBalance = new BalanceAccumulator();
+        private final List<CardDetail> details;
+
+        ProductTotals(long firstCardIndex) {
+            this(firstCardIndex, new ArrayList<>());
+        }
+
+        private ProductTotals(long firstCardIndex, List<CardDetail> details) {
+            this.firstCardIndex = firstCardIndex;
+            this.details = details;
+        }
+
+        /**
+         * @return The estimated number of bytes the card added.
+         */
+        long add(Card card, String expireDate) {
+            // Sum balances for the same product
+            totalBalance.add(card.getBalance());
+            CardDetail detail = new CardDetail(card.getCardNumber(), card.getBalance(), expireDate);
+            details.add(detail);
+            return estimateDetailBytes(detail.getCardNumber(), detail.getBalance(), detail.getExpireDate());
+        }
+
+        void merge(ProductTotals later) {
+            totalBalance.add(later.totalBalance);
+            details.addAll(later.details);
+        }
+
+        long estimatedBytes() {
+            long bytes = 0;
+            for (CardDetail detail : details) {
+                bytes += estimateDetailBytes(detail.getCardNumber(), detail.getBalance(), detail.getExpireDate());
+            }
+            return bytes;
+        }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeLong(firstCardIndex);
+            // toString keeps the scale, so the sum reads back exactly
+            out.writeUTF(totalBalance.toBigDecimal().toString());
+            out.writeInt(details.size());
+            for (CardDetail detail : details) {
+                AccountCodec.writeDetail(out, detail);
+            }
+        }
+
+        static ProductTotals readFrom(DataInput in) throws IOException {
+            long firstCardIndex = in.readLong();
+            String totalBalance = in.readUTF();
+            ProductTotals totals = new ProductTotals(firstCardIndex, AccountCodec.readDetails(in, in.readInt()));
+            totals.totalBalance.add(totalBalance);
+            return totals;
+        }
+
+        Product toProduct(String productName) {
+            details.sort(Comparator.comparing(CardDetail::getCardNumber));
+            return new Product(productName, totalBalance.toPlainString(), details);
+        }
+    }
+}
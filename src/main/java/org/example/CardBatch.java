@@ -0,0 +1,634 @@
+package org.example;
+
+import org.example.model.Account;
+import org.example.model.Card;
+import org.example.model.CardDetail;
+import org.example.model.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SequencedMap;
+
+/**
+ * Holds the cards of one file in primitive columns instead of one Card object per card.
+ * Account numbers and product names are dictionary-encoded as int ids, card numbers of up to 18 digits
+ * are packed into longs, balances into scaled longs and converted expiry dates into epoch days.
+ * Values that would not print back exactly the same way (a "+5" balance, a card number with letters,
+ * a date that could not be converted) keep their original string instead.
+ * Grouping sorts card indices with counting and merge sorts over the columns, and the output is identical
+ * to {@link CardAggregator}'s. Not safe to share between threads.
+ */
+class CardBatch implements GroupedCards {
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final int MAX_PACKED_DIGITS = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_PACKED_DIGITS + 1];
+    // Marks a card number or balance column entry whose original string is kept instead
+    private static final byte RAW = -1;
+    private static final int RAW_DATE = Integer.MIN_VALUE;
+    private static final int NO_ID = -1;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final DateConverter dateConverter;
+    private final Dictionary accountNumbers = new Dictionary();
+    private final Dictionary productNames = new Dictionary();
+    private final Dictionary rawExpireDates = new Dictionary();
+    // Epoch day of each distinct raw date, or RAW_DATE if its converted form is kept as a string
+    private int[] epochDayByDateId = new int[INITIAL_CAPACITY];
+    private String[] convertedByDateId = new String[INITIAL_CAPACITY];
+
+    private int size;
+    private int[] accountIds = new int[INITIAL_CAPACITY];
+    private int[] productIds = new int[INITIAL_CAPACITY];
+    private long[] cardNumbers = new long[INITIAL_CAPACITY];
+    private byte[] cardNumberDigits = new byte[INITIAL_CAPACITY];
+    private long[] balances = new long[INITIAL_CAPACITY];
+    private byte[] balanceScales = new byte[INITIAL_CAPACITY];
+    private int[] expiryDays = new int[INITIAL_CAPACITY];
+    // Original strings of entries that could not be packed, only allocated once one is needed
+    private String[] rawCardNumbers;
+    private String[] rawBalances;
+    private String[] rawConvertedDates;
+
+    // The card being filled field by field
+    private int pendingAccountId;
+    private int pendingProductId;
+    private long pendingCardNumber;
+    private byte pendingCardNumberDigits;
+    private String pendingRawCardNumber;
+    private long pendingBalance;
+    private byte pendingBalanceScale;
+    private String pendingRawBalance;
+    private int pendingDateId;
+
+    private char[] scratch = new char[64];
+
+    public CardBatch(DateConverter dateConverter) {
+        this.dateConverter = dateConverter;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(Card card) {
+        startCard();
+        setAccountNumber(card.getAccountNumber());
+        setProductName(card.getProductName());
+        setCardNumber(card.getCardNumber());
+        setBalance(card.getBalance());
+        setExpireDate(card.getExpireDate());
+        endCard();
+    }
+
+    /**
+     * Starts a new card. Its fields are set one by one, in any order, and stored by {@link #endCard()}.
+     * A field that is never set is null, as in a Card.
+     */
+    public void startCard() {
+        pendingAccountId = NO_ID;
+        pendingProductId = NO_ID;
+        pendingCardNumberDigits = RAW;
+        pendingRawCardNumber = null;
+        pendingBalanceScale = RAW;
+        pendingRawBalance = null;
+        pendingDateId = NO_ID;
+    }
+
+    public void setAccountNumber(String value) {
+        pendingAccountId = value == null ? NO_ID : accountNumbers.idOf(value);
+    }
+
+    public void setAccountNumber(char[] chars, int offset, int length) {
+        pendingAccountId = accountNumbers.idOf(chars, offset, length);
+    }
+
+    public void setProductName(String value) {
+        pendingProductId = value == null ? NO_ID : productNames.idOf(value);
+    }
+
+    public void setProductName(char[] chars, int offset, int length) {
+        pendingProductId = productNames.idOf(chars, offset, length);
+    }
+
+    public void setCardNumber(String value) {
+        if (value == null) {
+            pendingCardNumberDigits = RAW;
+            pendingRawCardNumber = null;
+        } else {
+            setCardNumber(toScratch(value), 0, value.length());
+        }
+    }
+
+    public void setCardNumber(char[] chars, int offset, int length) {
+        pendingCardNumberDigits = RAW;
+        if (length > 0 && length <= MAX_PACKED_DIGITS) {
+            long value = 0;
+            int end = offset + length;
+            int i = offset;
+            for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                value = value * 10 + (chars[i] - '0');
+            }
+            if (i == end) {
+                pendingCardNumber = value;
+                pendingCardNumberDigits = (byte) length;
+                return;
+            }
+        }
+        pendingRawCardNumber = new String(chars, offset, length);
+    }
+
+    public void setBalance(String value) {
+        if (value == null) {
+            pendingBalanceScale = RAW;
+            pendingRawBalance = null;
+        } else {
+            setBalance(toScratch(value), 0, value.length());
+        }
+    }
+
+    /**
+     * Packs balances in the form BigDecimal.toPlainString would print them back: an optional minus sign,
+     * integer digits without a leading zero, and an optional non-empty fraction.
+     */
+    public void setBalance(char[] chars, int offset, int length) {
+        pendingBalanceScale = RAW;
+        int end = offset + length;
+        int i = offset;
+        boolean negative = i < end && chars[i] == '-';
+        if (negative) {
+            i++;
+        }
+        int integerStart = i;
+        long value = 0;
+        int digits = 0;
+        for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+            value = value * 10 + (chars[i] - '0');
+            digits++;
+        }
+        int integerDigits = i - integerStart;
+        int scale = 0;
+        if (i < end && chars[i] == '.') {
+            i++;
+            for (; i < end && chars[i] >= '0' && chars[i] <= '9'; i++) {
+                value = value * 10 + (chars[i] - '0');
+                digits++;
+                scale++;
+            }
+            if (scale == 0) {
+                integerDigits = 0; // "7." is not printed back as written
+            }
+        }
+        boolean canonical = i == end && integerDigits > 0 && digits <= MAX_PACKED_DIGITS
+                && (integerDigits == 1 || chars[integerStart] != '0')
+                && !(negative && value == 0);
+        if (canonical) {
+            pendingBalance = negative ? -value : value;
+            pendingBalanceScale = (byte) scale;
+        } else {
+            pendingRawBalance = new String(chars, offset, length);
+        }
+    }
+
+    public void setExpireDate(String value) {
+        pendingDateId = value == null ? NO_ID : rawExpireDates.idOf(value);
+    }
+
+    public void setExpireDate(char[] chars, int offset, int length) {
+        pendingDateId = rawExpireDates.idOf(chars, offset, length);
+    }
+
+    /**
+     * Stores the card being filled. Fails on the same cards, with the same exceptions, as {@link CardAggregator#add(Card)}.
+     * @throws NullPointerException If the account number or product name is missing.
+     * @throws NumberFormatException If the balance is not a valid decimal.
+     */
+    public void endCard() {
+        if (pendingAccountId == NO_ID || pendingProductId == NO_ID) {
+            throw new NullPointerException("element cannot be mapped to a null key");
+        }
+        int epochDay = convertPendingDate();
+        if (pendingBalanceScale == RAW) {
+            new BigDecimal(pendingRawBalance); // Rejects the same balances summing would reject
+        }
+
+        ensureCapacity();
+        accountIds[size] = pendingAccountId;
+        productIds[size] = pendingProductId;
+        cardNumbers[size] = pendingCardNumber;
+        cardNumberDigits[size] = pendingCardNumberDigits;
+        if (pendingCardNumberDigits == RAW) {
+            rawCardNumbers = rawColumn(rawCardNumbers);
+            rawCardNumbers[size] = pendingRawCardNumber;
+        }
+        balances[size] = pendingBalance;
+        balanceScales[size] = pendingBalanceScale;
+        if (pendingBalanceScale == RAW) {
+            rawBalances = rawColumn(rawBalances);
+            rawBalances[size] = pendingRawBalance;
+        }
+        expiryDays[size] = epochDay;
+        if (epochDay == RAW_DATE) {
+            rawConvertedDates = rawColumn(rawConvertedDates);
+            rawConvertedDates[size] = convertedByDateId[pendingDateId];
+        }
+        size++;
+    }
+
+    /**
+     * Converts the pending date through the shared converter, so its statistics count every card,
+     * and remembers the epoch day of each distinct raw date.
+     */
+    private int convertPendingDate() {
+        if (pendingDateId == NO_ID) {
+            dateConverter.convert(null); // Fails like a card without an expiry date does
+        }
+        String converted = dateConverter.convert(rawExpireDates.name(pendingDateId));
+        if (pendingDateId >= epochDayByDateId.length) {
+            epochDayByDateId = Arrays.copyOf(epochDayByDateId, epochDayByDateId.length * 2);
+            convertedByDateId = Arrays.copyOf(convertedByDateId, convertedByDateId.length * 2);
+        }
+        if (convertedByDateId[pendingDateId] == null) {
+            convertedByDateId[pendingDateId] = converted;
+            epochDayByDateId[pendingDateId] = toEpochDay(converted);
+        }
+        return epochDayByDateId[pendingDateId];
+    }
+
+    /**
+     * @return The epoch day of a yyyy-MM-dd date that formats back to the same string, or RAW_DATE.
+     */
+    private static int toEpochDay(String date) {
+        if (date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return RAW_DATE;
+        }
+        for (int i = 0; i < 10; i++) {
+            if (i != 4 && i != 7 && (date.charAt(i) < '0' || date.charAt(i) > '9')) {
+                return RAW_DATE;
+            }
+        }
+        int year = Integer.parseInt(date, 0, 4, 10);
+        int month = Integer.parseInt(date, 5, 7, 10);
+        int day = Integer.parseInt(date, 8, 10, 10);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > LocalDate.of(year, month, 1).lengthOfMonth()) {
+            return RAW_DATE;
+        }
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    private static String formatEpochDay(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        char[] formatted = new char[10];
+        int year = date.getYear();
+        formatted[0] = (char) ('0' + year / 1000);
+        formatted[1] = (char) ('0' + year / 100 % 10);
+        formatted[2] = (char) ('0' + year / 10 % 10);
+        formatted[3] = (char) ('0' + year % 10);
+        formatted[4] = '-';
+        formatted[5] = (char) ('0' + date.getMonthValue() / 10);
+        formatted[6] = (char) ('0' + date.getMonthValue() % 10);
+        formatted[7] = '-';
+        formatted[8] = (char) ('0' + date.getDayOfMonth() / 10);
+        formatted[9] = (char) ('0' + date.getDayOfMonth() % 10);
+        return new String(formatted);
+    }
+
+    private char[] toScratch(String value) {
+        if (value.length() > scratch.length) {
+            scratch = new char[Math.max(value.length(), scratch.length * 2)];
+        }
+        value.getChars(0, value.length(), scratch, 0);
+        return scratch;
+    }
+
+    private void ensureCapacity() {
+        if (size < accountIds.length) {
+            return;
+        }
+        int capacity = accountIds.length * 2;
+        accountIds = Arrays.copyOf(accountIds, capacity);
+        productIds = Arrays.copyOf(productIds, capacity);
+        cardNumbers = Arrays.copyOf(cardNumbers, capacity);
+        cardNumberDigits = Arrays.copyOf(cardNumberDigits, capacity);
+        balances = Arrays.copyOf(balances, capacity);
+        balanceScales = Arrays.copyOf(balanceScales, capacity);
+        expiryDays = Arrays.copyOf(expiryDays, capacity);
+        if (rawCardNumbers != null) {
+            rawCardNumbers = Arrays.copyOf(rawCardNumbers, capacity);
+        }
+        if (rawBalances != null) {
+            rawBalances = Arrays.copyOf(rawBalances, capacity);
+        }
+        if (rawConvertedDates != null) {
+            rawConvertedDates = Arrays.copyOf(rawConvertedDates, capacity);
+        }
+    }
+
+    private String[] rawColumn(String[] column) {
+        return column != null ? column : new String[accountIds.length];
+    }
+
+    private String cardNumber(int card) {
+        int digits = cardNumberDigits[card];
+        if (digits == RAW) {
+            return rawCardNumbers[card];
+        }
+        String value = Long.toString(cardNumbers[card]);
+        return value.length() == digits ? value : "0".repeat(digits - value.length()) + value;
+    }
+
+    private String balance(int card) {
+        return balanceScales[card] == RAW ? rawBalances[card] : BalanceAccumulator.toPlainString(balances[card], balanceScales[card]);
+    }
+
+    /**
+     * Orders two cards like String.compareTo on their card numbers. Packed numbers are compared
+     * right-padded with zeros to the same width, and the shorter one first when those are equal.
+     */
+    private int compareCardNumbers(int left, int right) {
+        int leftDigits = cardNumberDigits[left];
+        int rightDigits = cardNumberDigits[right];
+        if (leftDigits == RAW || rightDigits == RAW) {
+            return cardNumber(left).compareTo(cardNumber(right));
+        }
+        int compared = Long.compare(cardNumbers[left] * POWERS_OF_TEN[MAX_PACKED_DIGITS - leftDigits],
+                cardNumbers[right] * POWERS_OF_TEN[MAX_PACKED_DIGITS - rightDigits]);
+        return compared != 0 ? compared : Integer.compare(leftDigits, rightDigits);
+    }
+
+    @Override
+    public int accountCount() {
+        return accountNumbers.size();
+    }
+
+    @Override
+    public Iterator<Account> accounts() {
+        return new AccountIterator();
+    }
+
+    /**
+     * Builds accounts in account number order from the card indices counting-sorted by account.
+     */
+    private class AccountIterator implements Iterator<Account> {
+        private final int[] accountIdsInOrder;
+        private final int[] cardsByAccount;
+        private final int[] accountStarts;
+        private final int[] slotOfProduct = new int[productNames.size()];
+        private final String[] formattedDates = new String[256];
+        private final int[] formattedDateKeys = new int[256];
+        private int next;
+
+        AccountIterator() {
+            int accountCount = accountNumbers.size();
+            String[] sortedNumbers = accountNumbers.names(accountCount);
+            Arrays.sort(sortedNumbers);
+            accountIdsInOrder = new int[accountCount];
+            int[] rankOfAccount = new int[accountCount];
+            for (int rank = 0; rank < accountCount; rank++) {
+                int id = accountNumbers.idOf(sortedNumbers[rank]);
+                accountIdsInOrder[rank] = id;
+                rankOfAccount[id] = rank;
+            }
+
+            accountStarts = new int[accountCount + 1];
+            for (int card = 0; card < size; card++) {
+                accountStarts[rankOfAccount[accountIds[card]] + 1]++;
+            }
+            for (int rank = 0; rank < accountCount; rank++) {
+                accountStarts[rank + 1] += accountStarts[rank];
+            }
+            int[] positions = Arrays.copyOf(accountStarts, accountCount);
+            cardsByAccount = new int[size];
+            for (int card = 0; card < size; card++) {
+                cardsByAccount[positions[rankOfAccount[accountIds[card]]]++] = card;
+            }
+            Arrays.fill(slotOfProduct, NO_ID);
+            Arrays.fill(formattedDateKeys, RAW_DATE);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < accountIdsInOrder.length;
+        }
+
+        @Override
+        public Account next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int start = accountStarts[next];
+            int end = accountStarts[next + 1];
+            String accountNumber = accountNumbers.name(accountIdsInOrder[next]);
+            next++;
+
+            // Give each product a slot in first-seen order, remembering where its first card was
+            int cardCount = end - start;
+            int[] slotProducts = new int[Math.min(cardCount, slotOfProduct.length)];
+            int[] slotFirstCard = new int[slotProducts.length];
+            int[] slotStarts = new int[slotProducts.length + 1];
+            int slotCount = 0;
+            for (int position = start; position < end; position++) {
+                int productId = productIds[cardsByAccount[position]];
+                int slot = slotOfProduct[productId];
+                if (slot == NO_ID) {
+                    slot = slotCount++;
+                    slotOfProduct[productId] = slot;
+                    slotProducts[slot] = productId;
+                    slotFirstCard[slot] = position - start;
+                }
+                slotStarts[slot + 1]++;
+            }
+            for (int slot = 0; slot < slotCount; slot++) {
+                slotStarts[slot + 1] += slotStarts[slot];
+            }
+            int[] cardsBySlot = new int[cardCount];
+            int[] slotPositions = Arrays.copyOf(slotStarts, slotCount);
+            for (int position = start; position < end; position++) {
+                int card = cardsByAccount[position];
+                cardsBySlot[slotPositions[slotOfProduct[productIds[card]]]++] = card;
+            }
+            for (int slot = 0; slot < slotCount; slot++) {
+                slotOfProduct[slotProducts[slot]] = NO_ID;
+            }
+
+            SequencedMap<String, Integer> slotsInFirstSeenOrder = new LinkedHashMap<>();
+            for (int slot = 0; slot < slotCount; slot++) {
+                slotsInFirstSeenOrder.put(productNames.name(slotProducts[slot]), slot);
+            }
+            Map<String, Integer> slotsByName = CardAggregator.inGroupingOrder(slotsInFirstSeenOrder,
+                    slotFirstCard[slotCount - 1] < cardCount - 1);
+
+            List<Product> products = new ArrayList<>(slotCount);
+            int[] sortBuffer = new int[cardCount];
+            for (Map.Entry<String, Integer> entry : slotsByName.entrySet()) {
+                int slot = entry.getValue();
+                products.add(toProduct(entry.getKey(), cardsBySlot, slotStarts[slot], slotStarts[slot + 1], sortBuffer));
+            }
+            return new Account(accountNumber, products);
+        }
+
+        /**
+         * Sums the balances in card order, then lists the details stably sorted by card number.
+         */
+        private Product toProduct(String productName, int[] cards, int from, int to, int[] sortBuffer) {
+            BalanceAccumulator totalBalance = new BalanceAccumulator();
+            for (int i = from; i < to; i++) {
+                int card = cards[i];
+                if (balanceScales[card] == RAW) {
+                    totalBalance.add(rawBalances[card]);
+                } else {
+                    totalBalance.add(balances[card], balanceScales[card]);
+                }
+            }
+
+            mergeSort(cards, sortBuffer, from, to);
+            List<CardDetail> details = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                int card = cards[i];
+                details.add(new CardDetail(cardNumber(card), balance(card), expireDate(card)));
+            }
+            return new Product(productName, totalBalance.toPlainString(), details);
+        }
+
+        private String expireDate(int card) {
+            int epochDay = expiryDays[card];
+            if (epochDay == RAW_DATE) {
+                return rawConvertedDates[card];
+            }
+            // Dates repeat heavily, so their strings are shared through a small direct-mapped cache
+            int bucket = epochDay & (formattedDateKeys.length - 1);
+            if (formattedDateKeys[bucket] != epochDay) {
+                formattedDateKeys[bucket] = epochDay;
+                formattedDates[bucket] = formatEpochDay(epochDay);
+            }
+            return formattedDates[bucket];
+        }
+
+        /**
+         * Stable merge sort of cards[from, to) by card number.
+         */
+        private void mergeSort(int[] cards, int[] buffer, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            mergeSort(cards, buffer, from, middle);
+            mergeSort(cards, buffer, middle, to);
+            if (compareCardNumbers(cards[middle - 1], cards[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(cards, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && compareCardNumbers(buffer[left], buffer[right]) <= 0)) {
+                    cards[i] = buffer[left++];
+                } else {
+                    cards[i] = buffer[right++];
+                }
+            }
+        }
+    }
+
+    /**
+     * Assigns int ids to strings in first-seen order. Lookups by char range avoid creating
+     * a String for values that have been seen before.
+     */
+    private static class Dictionary {
+        private String[] names = new String[64];
+        // Open addressing table of id + 1, where 0 marks an empty slot
+        private int[] table = new int[128];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        String name(int id) {
+            return names[id];
+        }
+
+        String[] names(int count) {
+            return Arrays.copyOf(names, count);
+        }
+
+        int idOf(String value) {
+            int mask = table.length - 1;
+            for (int slot = value.hashCode() & mask; ; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    return insert(value, slot);
+                }
+                if (names[entry - 1].equals(value)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        int idOf(char[] chars, int offset, int length) {
+            // The same hash as String.hashCode, so both lookups find the same slots
+            int hash = 0;
+            for (int i = offset; i < offset + length; i++) {
+                hash = 31 * hash + chars[i];
+            }
+            int mask = table.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    return insert(new String(chars, offset, length), slot);
+                }
+                if (matches(names[entry - 1], chars, offset, length)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        private static boolean matches(String name, char[] chars, int offset, int length) {
+            if (name.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (name.charAt(i) != chars[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int insert(String value, int slot) {
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            names[size] = value;
+            table[slot] = ++size;
+            if (size * 2 > table.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            int mask = table.length - 1;
+            for (int id = 0; id < size; id++) {
+                int slot = names[id].hashCode() & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = id + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.example;
+
+import org.example.model.Card;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Keeps only the last occurrence of each card number across a run's input files, in two passes over them.
+ * The first pass numbers every card in file order and records, per card number, the number of its last
+ * occurrence in a {@link CardIndex}. The second pass reads the files again and only lets through the card
+ * whose number matches. Cards are numbered from each file's own starting number in both passes, so files
+ * can be read in any order and in parallel during the second pass.
+ */
+class CardDeduplicator {
+    private final CardIndex lastOccurrence = new CardIndex();
+    private final Map<File, Integer> firstCard = new HashMap<>();
+    private final LongAdder duplicates = new LongAdder();
+    private int nextCard;
+
+    /**
+     * First pass: numbers the cards of the next file in order. Cards read before a parse error stay indexed.
+     * @return The number of cards read.
+     */
+    public long index(File inputFile, CardStreamReader cardReader) throws IOException {
+        firstCard.put(inputFile, nextCard);
+        return cardReader.read(inputFile, card -> {
+            if (nextCard == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Too many cards to deduplicate in one run");
+            }
+            lastOccurrence.put(card.getCardNumber(), nextCard++);
+        });
+    }
+
+    /**
+     * Second pass: wraps the consumer of an indexed file so that it only receives the last occurrence of
+     * each card number. Safe to call for several files at once.
+     */
+    public Consumer<Card> latestOnly(File inputFile, Consumer<Card> consumer) {
+        Integer first = firstCard.get(inputFile);
+        if (first == null) {
+            return consumer; // Not part of the first pass, so nothing is known about its cards
+        }
+        int[] card = {first};
+        return next -> {
+            if (lastOccurrence.get(next.getCardNumber()) == card[0]++) {
+                consumer.accept(next);
+            } else {
+                duplicates.increment();
+            }
+        };
+    }
+
+    public int distinctCards() {
+        return lastOccurrence.size();
+    }
+
+    public long duplicates() {
+        return duplicates.sum();
+    }
+}
@@ -0,0 +1,129 @@
+package org.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps card numbers to an int with open addressing over primitive arrays, at 12 bytes per slot.
+ * Card numbers of up to 17 digits are packed into a long together with their length, so numbers that only differ
+ * in leading zeros stay distinct and no String is kept per card. Other card numbers go to an ordinary map,
+ * which stays small for real card data. Not thread-safe while being written; concurrent reads are safe once
+ * writing is done.
+ */
+class CardIndex {
+    static final int ABSENT = -1;
+
+    private static final int MAX_PACKED_DIGITS = 17;
+    private static final float MAX_LOAD = 0.6f;
+    private static final long EMPTY = 0; // Never a packed key, which always holds a length of at least 1
+
+    private long[] keys;
+    private int[] values;
+    private int packedSize;
+    private final Map<String, Integer> unpacked = new HashMap<>();
+
+    public CardIndex() {
+        this(1 << 16);
+    }
+
+    /**
+     * @param expectedSize How many card numbers to make room for before the table first grows.
+     */
+    CardIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 29, (long) (expectedSize / MAX_LOAD)))) * 2;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Maps the card number to the value, replacing any earlier value.
+     */
+    public void put(String cardNumber, int value) {
+        long key = pack(cardNumber);
+        if (key == EMPTY) {
+            unpacked.put(cardNumber, value);
+            return;
+        }
+        int slot = slotOf(keys, key);
+        if (keys[slot] == EMPTY) {
+            if (packedSize + 1 > keys.length * MAX_LOAD) {
+                grow();
+                slot = slotOf(keys, key);
+            }
+            keys[slot] = key;
+            packedSize++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * @return The value of the card number, or {@link #ABSENT}.
+     */
+    public int get(String cardNumber) {
+        long key = pack(cardNumber);
+        if (key == EMPTY) {
+            return unpacked.getOrDefault(cardNumber, ABSENT);
+        }
+        int slot = slotOf(keys, key);
+        return keys[slot] == EMPTY ? ABSENT : values[slot];
+    }
+
+    public int size() {
+        return packedSize + unpacked.size();
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * The slot holding the key, or the empty slot where it belongs.
+     */
+    private static int slotOf(long[] keys, long key) {
+        int mask = keys.length - 1;
+        int slot = (int) mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static long mix(long key) {
+        // The finalizer of MurmurHash3, so that consecutive card numbers spread over the table
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Packs a card number of 1 to 17 digits as its value shifted left by 5 bits plus its length.
+     * @return {@link #EMPTY} if the card number cannot be packed.
+     */
+    private static long pack(String cardNumber) {
+        if (cardNumber == null || cardNumber.isEmpty() || cardNumber.length() > MAX_PACKED_DIGITS) {
+            return EMPTY;
+        }
+        long value = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return EMPTY;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value << 5 | cardNumber.length();
+    }
+}
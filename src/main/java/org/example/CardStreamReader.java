@@ -0,0 +1,202 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import org.example.model.Card;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the cards of an input file token by token with Jackson's streaming API.
+ * Each card is handed to the consumer as soon as it is parsed, so the whole
+ * InputFile.cards list is never materialized.
+ * Files at or above the mmap threshold are read through memory-mapped windows instead of buffered stream I/O.
+ * Gzip files are decompressed as they are parsed.
+ */
+class CardStreamReader {
+    private static final String CARDS_FIELD = "cards";
+    private static final String ACCOUNT_NUMBER_FIELD = "accountNumber";
+    private static final String PRODUCT_NAME_FIELD = "productName";
+    private static final String CARD_NUMBER_FIELD = "cardNumber";
+    private static final String BALANCE_FIELD = "balance";
+    private static final String EXPIRE_DATE_FIELD = "expire-date";
+    private static final List<Object> CARD_FIELDS = List.of(
+            PRODUCT_NAME_FIELD, CARD_NUMBER_FIELD, ACCOUNT_NUMBER_FIELD, BALANCE_FIELD, EXPIRE_DATE_FIELD);
+
+    private final JsonFactory jsonFactory;
+    private final ObjectReader cardReader;
+    private final ObjectReader stringReader;
+    private final boolean failOnUnknownProperties;
+    private final long mmapThresholdBytes;
+    private final long mmapWindowBytes;
+
+    /**
+     * @param mmapThresholdBytes The file size from which files are memory-mapped. 0 disables memory mapping.
+     */
+    public CardStreamReader(ObjectMapper objectMapper, long mmapThresholdBytes) {
+        this(objectMapper, mmapThresholdBytes, MappedFileInputStream.DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * @param mmapWindowBytes How much of a memory-mapped file is mapped at a time.
+     */
+    CardStreamReader(ObjectMapper objectMapper, long mmapThresholdBytes, long mmapWindowBytes) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.cardReader = objectMapper.readerFor(Card.class);
+        this.stringReader = objectMapper.readerFor(String.class);
+        this.failOnUnknownProperties = objectMapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        this.mmapThresholdBytes = mmapThresholdBytes;
+        this.mmapWindowBytes = mmapWindowBytes;
+    }
+
+    /**
+     * Streams every card of the given file into the consumer.
+     * Cards read before a parse error have already been handed over when the exception is thrown.
+     * @return The number of cards read.
+     */
+    public long read(File inputFile, Consumer<Card> consumer) throws IOException {
+        try (JsonParser parser = createParser(inputFile)) {
+            return read(parser, cardParser -> consumer.accept(cardReader.readValue(cardParser)));
+        }
+    }
+
+    /**
+     * Reads every card of the given file straight into the batch's columns, without creating Card objects.
+     * @return The number of cards read.
+     */
+    public long read(File inputFile, CardBatch batch) throws IOException {
+        try (JsonParser parser = createParser(inputFile)) {
+            return read(parser, cardParser -> readCard(cardParser, batch));
+        }
+    }
+
+    private JsonParser createParser(File inputFile) throws IOException {
+        if (InputFiles.isCompressed(inputFile)) {
+            return jsonFactory.createParser(InputFiles.open(inputFile));
+        }
+        if (mmapThresholdBytes > 0 && inputFile.length() >= mmapThresholdBytes) {
+            return jsonFactory.createParser(new MappedFileInputStream(inputFile.toPath(), mmapWindowBytes));
+        }
+        return jsonFactory.createParser(inputFile);
+    }
+
+    /**
+     * Streams every card of an input file that has already been read into memory.
+     * @return The number of cards read.
+     */
+    public long read(byte[] content, Consumer<Card> consumer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(content)) {
+            return read(parser, cardParser -> consumer.accept(cardReader.readValue(cardParser)));
+        }
+    }
+
+    /**
+     * Reads every card of an input file that has already been read into memory straight into the batch's columns.
+     * @return The number of cards read.
+     */
+    public long read(byte[] content, CardBatch batch) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(content)) {
+            return read(parser, cardParser -> readCard(cardParser, batch));
+        }
+    }
+
+    private long read(JsonParser parser, CardHandler cardHandler) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object at the root of the input file");
+        }
+
+        long cardCount = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            if (CARDS_FIELD.equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    cardHandler.handle(parser);
+                    cardCount++;
+                }
+            } else {
+                // cardTotal and anything else at the top level is not needed for grouping
+                parser.skipChildren();
+            }
+        }
+        return cardCount;
+    }
+
+    /**
+     * Reads one card object field by field into the batch. String values are handed over as the parser's
+     * characters; anything else (numbers, a card that is not an object) goes through the same data binding
+     * as Card, so the batch sees the same values and the same errors.
+     */
+    private void readCard(JsonParser parser, CardBatch batch) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            batch.add(cardReader.readValue(parser));
+            return;
+        }
+        batch.startCard();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken valueToken = parser.nextToken();
+            switch (fieldName) {
+                case ACCOUNT_NUMBER_FIELD -> {
+                    if (valueToken == JsonToken.VALUE_STRING) {
+                        batch.setAccountNumber(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } else {
+                        batch.setAccountNumber(stringReader.<String>readValue(parser));
+                    }
+                }
+                case PRODUCT_NAME_FIELD -> {
+                    if (valueToken == JsonToken.VALUE_STRING) {
+                        batch.setProductName(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } else {
+                        batch.setProductName(stringReader.<String>readValue(parser));
+                    }
+                }
+                case CARD_NUMBER_FIELD -> {
+                    if (valueToken == JsonToken.VALUE_STRING) {
+                        batch.setCardNumber(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } else {
+                        batch.setCardNumber(stringReader.<String>readValue(parser));
+                    }
+                }
+                case BALANCE_FIELD -> {
+                    if (valueToken == JsonToken.VALUE_STRING) {
+                        batch.setBalance(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } else {
+                        batch.setBalance(stringReader.<String>readValue(parser));
+                    }
+                }
+                case EXPIRE_DATE_FIELD -> {
+                    if (valueToken == JsonToken.VALUE_STRING) {
+                        batch.setExpireDate(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+                    } else {
+                        batch.setExpireDate(stringReader.<String>readValue(parser));
+                    }
+                }
+                default -> {
+                    if (failOnUnknownProperties) {
+                        throw UnrecognizedPropertyException.from(parser, Card.class, fieldName, CARD_FIELDS);
+                    }
+                    parser.skipChildren();
+                }
+            }
+        }
+        batch.endCard();
+    }
+
+    @FunctionalInterface
+    private interface CardHandler {
+        /**
+         * Handles the card whose first token is the parser's current token, leaving the parser on its last token.
+         */
+        void handle(JsonParser parser) throws IOException;
+    }
+}
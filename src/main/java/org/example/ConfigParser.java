@@ -1,31 +1,173 @@
 package org.example;
 
 import org.example.model.AppConfig;
-import org.w3c.dom.Document;
+import org.example.model.CardDedup;
+import org.example.model.Compression;
+import org.example.model.OutputFormat;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Parses the Configuration.xml file.
+ * The file is read in one pass with a StAX reader that only collects the text of its leaf elements,
+ * instead of building a DOM for a handful of values.
  */
 class ConfigParser {
+    private static final long MEGABYTE = 1024 * 1024;
+    private static final XMLInputFactory XML_INPUT_FACTORY = newInputFactory();
+
     public static AppConfig parse(File configFile) {
         try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder = factory.newDocumentBuilder();
-            Document doc = builder.parse(configFile);
-            doc.getDocumentElement().normalize();
+            Map<String, String> values;
+            try (InputStream in = new BufferedInputStream(new FileInputStream(configFile))) {
+                values = readValues(in);
+            }
 
-            int threads = Integer.parseInt(doc.getElementsByTagName("Thread").item(0).getTextContent().trim());
-            int mode = Integer.parseInt(doc.getElementsByTagName("Mode").item(0).getTextContent().trim());
+            int threads = intAtLeast("Thread", requiredValue(values, "Thread"), 1);
+            int mode = intInRange("Mode", requiredValue(values, "Mode"), 1, 4);
+            AppConfig.Builder builder = AppConfig.builder(threads, mode);
+            ifPresent(values, "PrettyPrint", value -> builder.prettyPrint(Boolean.parseBoolean(value)));
+            ifPresent(values, "MemoryBudgetMb", value -> builder.memoryBudgetBytes(
+                    Math.multiplyExact(longAtLeast("MemoryBudgetMb", value, 0), MEGABYTE)));
+            ifPresent(values, "MaxOpenFiles", value -> builder.maxOpenFiles(intAtLeast("MaxOpenFiles", value, 1)));
+            ifPresent(values, "ReaderThreads", value -> builder.readerThreads(intAtLeast("ReaderThreads", value, 1)));
+            ifPresent(values, "WriterThreads", value -> builder.writerThreads(intAtLeast("WriterThreads", value, 1)));
+            ifPresent(values, "QueueCapacity", value -> builder.queueCapacity(intAtLeast("QueueCapacity", value, 1)));
+            ifPresent(values, "MmapThresholdMb", value -> builder.mmapThresholdBytes(
+                    Math.multiplyExact(longAtLeast("MmapThresholdMb", value, 0), MEGABYTE)));
+            ifPresent(values, "PartialStoreDir", builder::partialStoreDir);
+            ifPresent(values, "BatchMaxFiles", value -> builder.batchMaxFiles(intAtLeast("BatchMaxFiles", value, 1)));
+            ifPresent(values, "BatchWindowMs", value -> builder.batchWindowMs(longAtLeast("BatchWindowMs", value, 0)));
+            ifPresent(values, "WriteQuietMs", value -> builder.writeQuietMs(longAtLeast("WriteQuietMs", value, 0)));
+            ifPresent(values, "OutputFormat", value -> builder.outputFormat(OutputFormat.fromName(value)));
+            ifPresent(values, "ColumnarBatches", value -> builder.columnarBatches(Boolean.parseBoolean(value)));
+            ifPresent(values, "Shards", value -> builder.shards(intAtLeast("Shards", value, 1)));
+            ifPresent(values, "RunReport", value -> builder.runReport(Boolean.parseBoolean(value)));
+            ifPresent(values, "OutputBuffers", value -> builder.outputBuffers(intAtLeast("OutputBuffers", value, 0)));
+            ifPresent(values, "OutputBufferKb", value -> builder.outputBufferBytes(
+                    Math.multiplyExact(intInRange("OutputBufferKb", value, 1, Integer.MAX_VALUE / 1024), 1024)));
+            ifPresent(values, "FsyncOutput", value -> builder.fsyncOutput(Boolean.parseBoolean(value)));
+            ifPresent(values, "OutputCompression", value -> builder.outputCompression(Compression.fromName(value)));
+            ifPresent(values, "Dedup", value -> builder.dedup(CardDedup.fromName(value)));
+            ifPresent(values, "OutputIndex", value -> builder.outputIndex(Boolean.parseBoolean(value)));
+            AppConfig config = builder.build();
 
-            System.out.println("⚙️ Configuration loaded: Threads=" + threads + ", Mode=" + mode);
-            return new AppConfig(threads, mode);
+            System.out.println("⚙️ Configuration loaded: Threads=" + config.threads() + ", Mode=" + config.mode()
+                    + ", PrettyPrint=" + config.prettyPrint()
+                    + ", MemoryBudgetMb="
+                    + (config.memoryBudgetBytes() > 0 ? config.memoryBudgetBytes() / MEGABYTE : "auto")
+                    + ", MaxOpenFiles=" + config.maxOpenFiles() + ", ReaderThreads=" + config.readerThreads()
+                    + ", WriterThreads=" + config.writerThreads() + ", QueueCapacity=" + config.queueCapacity()
+                    + ", MmapThresholdMb=" + config.mmapThresholdBytes() / MEGABYTE
+                    + ", PartialStoreDir=" + (config.partialStoreDir().isEmpty() ? "off" : config.partialStoreDir())
+                    + ", BatchMaxFiles=" + config.batchMaxFiles() + ", BatchWindowMs=" + config.batchWindowMs()
+                    + ", WriteQuietMs=" + config.writeQuietMs() + ", OutputFormat=" + config.outputFormat()
+                    + ", ColumnarBatches=" + config.columnarBatches() + ", Shards=" + config.shards()
+                    + ", RunReport=" + config.runReport()
+                    + ", OutputBuffers=" + (config.outputBuffers() > 0 ? config.outputBuffers() : "auto")
+                    + ", OutputBufferKb=" + config.outputBufferBytes() / 1024 + ", FsyncOutput=" + config.fsyncOutput()
+                    + ", OutputCompression=" + config.outputCompression() + ", Dedup=" + config.dedup()
+                    + ", OutputIndex=" + config.outputIndex());
+            return config;
         } catch (Exception e) {
             System.err.println("❌ Failed to parse Configuration.xml: " + e.getMessage());
             return null;
         }
     }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // The configuration never needs a DTD, and ignoring them keeps external entities out
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Maps each leaf element name to its trimmed text. An element that appears more than once keeps its first value.
+     */
+    static Map<String, String> readValues(InputStream in) throws XMLStreamException {
+        Map<String, String> values = new HashMap<>();
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(in);
+        try {
+            String element = null; // The open element, until a child element starts inside it
+            StringBuilder text = new StringBuilder();
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT -> {
+                        element = reader.getLocalName();
+                        text.setLength(0);
+                    }
+                    case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA -> text.append(reader.getText());
+                    case XMLStreamConstants.END_ELEMENT -> {
+                        if (element != null) {
+                            values.putIfAbsent(element, text.toString().trim());
+                        }
+                        element = null;
+                    }
+                    default -> { }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return values;
+    }
+
+    private static String requiredValue(Map<String, String> values, String tagName) {
+        String value = values.get(tagName);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing <" + tagName + "> element");
+        }
+        return value;
+    }
+
+    private static int intAtLeast(String tagName, String value, int min) {
+        return intInRange(tagName, value, min, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Parses a whole number and rejects it outside min to max, where it would break the setting's executor,
+     * queue or buffer.
+     */
+    private static int intInRange(String tagName, String value, int min, int max) {
+        long number = longAtLeast(tagName, value, min);
+        if (number > max) {
+            throw new IllegalArgumentException("<" + tagName + "> must be at most " + max + ", but is " + number);
+        }
+        return (int) number;
+    }
+
+    private static long longAtLeast(String tagName, String value, long min) {
+        long number;
+        try {
+            number = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("<" + tagName + "> is not a whole number: '" + value + "'");
+        }
+        if (number < min) {
+            throw new IllegalArgumentException("<" + tagName + "> must be at least " + min + ", but is " + number);
+        }
+        return number;
+    }
+
+    /**
+     * Passes the value of an optional element to the setter, leaving the builder's default when it is missing.
+     */
+    private static void ifPresent(Map<String, String> values, String tagName, Consumer<String> setter) {
+        String value = values.get(tagName);
+        if (value != null) {
+            setter.accept(value);
+        }
+    }
 }
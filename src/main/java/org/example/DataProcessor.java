@@ -1,25 +1,31 @@
 package org.example;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import org.example.model.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,18 +33,36 @@ import java.util.stream.Stream;
  * Handles the core logic of reading, transforming, and writing data.
  */
 public class DataProcessor {
+    private static final long MEGABYTE = 1024 * 1024;
+    // Smaller files are never split in Mode 1; parsing them takes less time than scheduling their chunks saves
+    private static final long MIN_SPLIT_FILE_BYTES = 4 * MEGABYTE;
+
     private final AppConfig config;
     private final String inputDir;
     private final String outputDir;
     private final ObjectMapper objectMapper;
-    private static final DateTimeFormatter INPUT_DATE_FORMAT = DateTimeFormatter.ofPattern("ddMMyyyy");
-    private static final DateTimeFormatter OUTPUT_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private final CardStreamReader cardReader;
+    private final OutputFiles outputFiles;
+    private final JsonOutputWriter outputWriter;
+    private final DateConverter dateConverter = new DateConverter();
+    private RunMetrics runMetrics;
+    private CardDeduplicator deduplicator;
 
     public DataProcessor(AppConfig config, String inputDir, String outputDir) {
         this.config = config;
         this.inputDir = inputDir;
         this.outputDir = outputDir;
-        this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        this.objectMapper = JsonMappers.JSON;
+        this.cardReader = new CardStreamReader(objectMapper, config.mmapThresholdBytes());
+        this.outputFiles = new OutputFiles(config.outputBuffers() > 0 ? config.outputBuffers()
+                : Math.max(config.threads(), config.writerThreads()), config.outputBufferBytes(), config.fsyncOutput());
+        boolean indexOutputs = config.outputIndex()
+                && config.outputFormat() == OutputFormat.JSON && config.outputCompression() == Compression.NONE;
+        if (config.outputIndex() && !indexOutputs) {
+            System.err.println("⚠️ Account indexes are only written for uncompressed JSON output.");
+        }
+        this.outputWriter = new JsonOutputWriter(JsonMappers.forFormat(config.outputFormat()), config.prettyPrint(),
+                outputFiles, indexOutputs);
     }
 
     /**
@@ -48,154 +72,537 @@ public class DataProcessor {
     public void processFiles() {
         List<File> jsonFiles = findInputFiles();
         if (jsonFiles.isEmpty()) {
-            System.out.println("🟡 No .json files found in the Input directory to process.");
+            System.out.println("🟡 No .json or .json.gz files found in the Input directory to process.");
             return;
         }
+        process(jsonFiles);
+    }
+
+    /**
+     * Processes files that have just arrived in the Input directory, for the daemon mode.
+     * Mode 2 output always covers every input file, so it aggregates the whole directory again
+     * (with a partial store configured, only the new files are parsed). The other modes process just the given files.
+     */
+    public void processNewFiles(List<File> newFiles) {
+        if (config.mode() == 2) {
+            processFiles();
+        } else if (!newFiles.isEmpty()) {
+            process(newFiles);
+        }
+    }
 
+    private void process(List<File> jsonFiles) {
+        runMetrics = new RunMetrics(config, dateConverter);
+        runMetrics.publish();
         if (config.mode() == 2) {
             processAggregateMode(jsonFiles); // Bonus requirement
+        } else if (config.mode() == 3) {
+            processVirtualThreadMode(jsonFiles);
+        } else if (config.mode() == 4) {
+            processPipelineMode(jsonFiles);
         } else {
             processParallelMode(jsonFiles); // Bonus requirement
         }
+        runMetrics.finish();
+        reportDateConversions();
+        if (config.runReport()) {
+            writeRunReport();
+        }
+    }
+
+    /**
+     * Reports the run's own conversions: the converter and its counters live as long as this processor,
+     * which the daemon reuses for every batch.
+     */
+    private void reportDateConversions() {
+        long parseFailures = runMetrics.getDateParseFailures();
+        if (parseFailures > 0) {
+            System.err.println("⚠️ Could not parse " + parseFailures + " expiry dates. Their original values were kept.");
+        }
+        System.out.println("📅 Date conversion cache hits: " + runMetrics.getDateCacheHits());
+    }
+
+    /**
+     * Writes the run's metrics as a JSON report next to its output files.
+     */
+    private void writeRunReport() {
+        RunReport report = runMetrics.toReport();
+        String timestamp = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss_SSS").format(java.time.LocalDateTime.now());
+        Path reportPath = Paths.get(outputDir, "run-report_" + timestamp + ".json");
+        try {
+            outputFiles.write(reportPath, out -> JsonMappers.RUN_REPORT_WRITER.writeValue(out, report));
+            System.out.println("📈 Processed " + report.cardsProcessed() + " cards from " + report.filesProcessed()
+                    + " files in " + TimeUnit.NANOSECONDS.toMillis(report.elapsedNanos()) + " ms ("
+                    + Math.round(report.cardsPerSecond()) + " cards/s). Run report: " + reportPath);
+        } catch (IOException e) {
+            System.err.println("❌ Error writing run report: " + e.getMessage());
+        }
     }
 
     /**
      * Mode 1: Process each file individually in parallel.
+     * Files are started largest first on a work-stealing pool, so a big file does not start last and hold up the run.
+     * A file larger than its fair share of the total work is split after reading: its cards are grouped in chunks
+     * that idle workers pick up, and the chunk results are merged in order before its output is written.
      */
     private void processParallelMode(List<File> jsonFiles) {
         System.out.println("📂 Mode 1: Processing " + jsonFiles.size() + " files in parallel with " + config.threads() + " threads.");
-        ExecutorService executor = Executors.newFixedThreadPool(config.threads());
+        List<File> largestFirst = new ArrayList<>(jsonFiles);
+        largestFirst.sort(Comparator.comparingLong(File::length).reversed());
+        long totalBytes = largestFirst.stream().mapToLong(File::length).sum();
+        long splitThresholdBytes = Math.max(MIN_SPLIT_FILE_BYTES, totalBytes / config.threads());
 
-        for (File inputFile : jsonFiles) {
-            executor.submit(() -> {
+        ForkJoinPool pool = new ForkJoinPool(config.threads());
+        runMetrics.watchQueue(() -> (int) Math.min(Integer.MAX_VALUE, pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount()));
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (File inputFile : largestFirst) {
+            boolean split = config.threads() > 1 && inputFile.length() > splitThresholdBytes;
+            if (split) {
+                System.out.println("   -> Splitting " + inputFile.getName() + " (" + inputFile.length() / MEGABYTE
+                        + " MB) into chunks of " + ParallelTransformer.CHUNK_SIZE + " cards.");
+            }
+            tasks.add(pool.submit(() -> {
                 try {
-                    InputFile inputData = objectMapper.readValue(inputFile, InputFile.class);
-                    OutputFile outputData = transformData(inputData.getCards());
+                    RunMetrics.FileMetrics metrics = runMetrics.startFile(inputFile);
+                    GroupedCards grouped = split ? groupFileInChunks(inputFile, metrics) : groupFile(inputFile, metrics);
 
-                    Path outputPath = Paths.get(outputDir, inputFile.getName());
-                    objectMapper.writeValue(outputPath.toFile(), outputData);
+                    Path outputPath = Paths.get(outputDir, outputFileName(inputFile));
+                    outputWriter.write(outputPath, grouped.accountCount(), grouped.accounts(), metrics);
+                    runMetrics.finishFile(metrics);
                     System.out.println("   -> Successfully processed and wrote: " + outputPath);
                 } catch (IOException e) {
                     System.err.println("❌ Error processing file " + inputFile.getName() + ": " + e.getMessage());
                 }
+            }));
+        }
+        // A worker blocked in a join can look idle to the pool, so only shut it down once every file is done
+        tasks.forEach(ForkJoinTask::quietlyJoin);
+        shutdownExecutor(pool);
+    }
+
+    /**
+     * Reads a file's cards into a list, then groups them in chunks on the current ForkJoinPool.
+     */
+    private CardAggregator groupFileInChunks(File inputFile, RunMetrics.FileMetrics metrics) throws IOException {
+        List<Card> cards = new ArrayList<>();
+        metrics.addCards(metrics.time(RunMetrics.Phase.PARSE, () -> cardReader.read(inputFile, cards::add)));
+        return metrics.time(RunMetrics.Phase.TRANSFORM,
+                () -> new ParallelTransformer(config.threads(), dateConverter).aggregateInCurrentPool(cards));
+    }
+
+    /**
+     * Mode 3: Process each file individually on its own virtual thread.
+     * Reading and writing block only cheap virtual threads, while parsing, grouping and serializing run on a fixed
+     * pool sized from threads. Each file is held in memory from reading until its output is written, so a semaphore
+     * bounds how many files are in flight at once, and with them the heap; this mode suits many small files.
+     */
+    private void processVirtualThreadMode(List<File> jsonFiles) {
+        System.out.println("🧵 Mode 3: Processing " + jsonFiles.size() + " files on virtual threads with "
+                + config.threads() + " CPU threads and at most " + config.maxOpenFiles() + " files in flight.");
+        Semaphore filesInFlight = new Semaphore(config.maxOpenFiles());
+        ThreadPoolExecutor cpuPool = (ThreadPoolExecutor) Executors.newFixedThreadPool(config.threads());
+        runMetrics.watchQueue(() -> cpuPool.getQueue().size());
+
+        try (ExecutorService fileExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (File inputFile : jsonFiles) {
+                fileExecutor.submit(() -> processFileOnVirtualThread(inputFile, filesInFlight, cpuPool));
+            }
+        } finally {
+            shutdownExecutor(cpuPool);
+        }
+    }
+
+    private void processFileOnVirtualThread(File inputFile, Semaphore filesInFlight, ExecutorService cpuPool) {
+        try {
+            filesInFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            RunMetrics.FileMetrics metrics = runMetrics.startFile(inputFile);
+            byte[] content = metrics.time(RunMetrics.Phase.READ, () -> InputFiles.readAllBytes(inputFile));
+
+            AccountIndex index = outputWriter.newIndex();
+            byte[] output = cpuPool.submit(() -> {
+                GroupedCards grouped = groupContent(content, metrics);
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                outputWriter.write(buffer, grouped.accountCount(), grouped.accounts(), metrics, index);
+                return buffer.toByteArray();
+            }).get();
+
+            Path outputPath = Paths.get(outputDir, outputFileName(inputFile));
+            metrics.time(RunMetrics.Phase.WRITE, () -> {
+                outputFiles.write(outputPath, output);
+                if (index != null) {
+                    index.writeFor(outputPath, outputFiles);
+                }
+                return outputPath;
             });
+            metrics.setOutput(outputPath.getFileName().toString());
+            runMetrics.finishFile(metrics);
+            System.out.println("   -> Successfully processed and wrote: " + outputPath);
+        } catch (IOException e) {
+            System.err.println("❌ Error processing file " + inputFile.getName() + ": " + e.getMessage());
+        } catch (ExecutionException e) {
+            System.err.println("❌ Error processing file " + inputFile.getName() + ": " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            filesInFlight.release();
         }
-        shutdownExecutor(executor);
+    }
+
+    /**
+     * Mode 4: Process each file individually through a read → transform → write pipeline.
+     * The stages run concurrently with their own worker counts and hand files over through bounded queues.
+     */
+    private void processPipelineMode(List<File> jsonFiles) {
+        System.out.println("🛤️ Mode 4: Pipelining " + jsonFiles.size() + " files with " + config.readerThreads() + " readers, "
+                + config.threads() + " transformers and " + config.writerThreads() + " writers.");
+        FilePipeline pipeline = new FilePipeline(config.queueCapacity());
+        runMetrics.watchQueue(pipeline::queuedItems);
+        try {
+            pipeline.run(jsonFiles,
+                    config.readerThreads(), inputFile -> {
+                        RunMetrics.FileMetrics metrics = runMetrics.startFile(inputFile);
+                        return new FileContent(inputFile, metrics.time(RunMetrics.Phase.READ,
+                                () -> InputFiles.readAllBytes(inputFile)), metrics, null);
+                    },
+                    config.threads(), read -> {
+                        GroupedCards grouped = groupContent(read.content(), read.metrics());
+                        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                        AccountIndex index = outputWriter.newIndex();
+                        outputWriter.write(buffer, grouped.accountCount(), grouped.accounts(), read.metrics(), index);
+                        return new FileContent(read.inputFile(), buffer.toByteArray(), read.metrics(), index);
+                    },
+                    config.writerThreads(), transformed -> {
+                        Path outputPath = Paths.get(outputDir, outputFileName(transformed.inputFile()));
+                        transformed.metrics().time(RunMetrics.Phase.WRITE, () -> {
+                            outputFiles.write(outputPath, transformed.content());
+                            if (transformed.index() != null) {
+                                transformed.index().writeFor(outputPath, outputFiles);
+                            }
+                            return outputPath;
+                        });
+                        transformed.metrics().setOutput(outputPath.getFileName().toString());
+                        runMetrics.finishFile(transformed.metrics());
+                        System.out.println("   -> Successfully processed and wrote: " + outputPath);
+                        return outputPath;
+                    });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        pipeline.printStats();
+    }
+
+    /**
+     * @param index The account index of transformed content, if outputs are indexed.
+     */
+    private record FileContent(File inputFile, byte[] content, RunMetrics.FileMetrics metrics, AccountIndex index) {}
+
+    /**
+     * Groups the cards of one file, in primitive columns when columnar batches are enabled.
+     */
+    private GroupedCards groupFile(File inputFile, RunMetrics.FileMetrics metrics) throws IOException {
+        return metrics.time(RunMetrics.Phase.PARSE, () -> {
+            if (config.columnarBatches()) {
+                CardBatch batch = new CardBatch(dateConverter);
+                metrics.addCards(cardReader.read(inputFile, batch));
+                return batch;
+            }
+            CardAggregator aggregator = new CardAggregator(dateConverter);
+            metrics.addCards(cardReader.read(inputFile, aggregator::add));
+            return aggregator;
+        });
+    }
+
+    private GroupedCards groupContent(byte[] content, RunMetrics.FileMetrics metrics) throws IOException {
+        return metrics.time(RunMetrics.Phase.PARSE, () -> {
+            if (config.columnarBatches()) {
+                CardBatch batch = new CardBatch(dateConverter);
+                metrics.addCards(cardReader.read(content, batch));
+                return batch;
+            }
+            CardAggregator aggregator = new CardAggregator(dateConverter);
+            metrics.addCards(cardReader.read(content, aggregator::add));
+            return aggregator;
+        });
     }
 
     /**
      * Mode 2: Aggregate all data from all files into one output.
+     * Cards are streamed from each file into a single aggregator, which spills
+     * to disk once the configured memory budget is exceeded.
      */
     private void processAggregateMode(List<File> jsonFiles) {
         System.out.println("📦 Mode 2: Aggregating data from " + jsonFiles.size() + " files.");
-        List<Card> allCards = new ArrayList<>();
+        deduplicator = null;
+        if (config.dedup() != CardDedup.NONE) {
+            jsonFiles = config.dedup().order(jsonFiles);
+            deduplicator = indexCards(jsonFiles);
+        }
+
+        try (SpillingAggregator aggregator = new SpillingAggregator(memoryBudgetBytes(), dateConverter)) {
+            PartialStore partialStore = deduplicator == null ? openPartialStore(jsonFiles) : null;
+            if (config.threads() > 1) {
+                aggregateFilesInParallel(jsonFiles, aggregator, partialStore);
+            } else if (partialStore != null) {
+                for (File inputFile : jsonFiles) {
+                    aggregator.addAll(loadOrReadPartial(inputFile, partialStore));
+                }
+            } else {
+                for (File inputFile : jsonFiles) {
+                    aggregateFile(inputFile, aggregator);
+                }
+            }
+            if (partialStore != null) {
+                System.out.println("   -> Reused " + partialStore.reusedCount() + " stored partials, parsed and stored "
+                        + partialStore.storedCount() + " files.");
+            }
+            if (deduplicator != null) {
+                System.out.println("   -> Dropped " + deduplicator.duplicates() + " duplicate cards, keeping "
+                        + deduplicator.distinctCards() + " distinct card numbers.");
+            }
+
+            if (aggregator.isEmpty()) {
+                System.out.println("🟡 No card data found across all files to aggregate.");
+                return;
+            }
+
+            String timestamp = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss").format(java.time.LocalDateTime.now());
+            if (config.shards() > 1) {
+                writeAggregateShards(aggregator, "aggregated-result_" + timestamp);
+                return;
+            }
+            String outputFileName = "aggregated-result_" + timestamp + outputExtension(); //
+            Path outputPath = Paths.get(outputDir, outputFileName);
+
+            try {
+                RunMetrics.FileMetrics metrics = runMetrics.startOutput();
+                outputWriter.write(outputPath, aggregator.accountCount(), aggregator.accounts(), metrics);
+                runMetrics.finishFile(metrics);
+                System.out.println("   -> Successfully aggregated and wrote: " + outputPath);
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("❌ Error writing aggregated file: " + e.getMessage());
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("❌ Error using spill files for aggregation: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Splits the aggregated result into up to {@code shards} files by account range and writes them concurrently,
+     * followed by a manifest listing each shard's account range and accountTotal.
+     */
+    private void writeAggregateShards(SpillingAggregator aggregator, String baseName) throws IOException {
+        List<AccountRange> ranges = aggregator.accountRanges(config.shards());
+        ShardedOutputWriter shardWriter = new ShardedOutputWriter(outputWriter, objectMapper, runMetrics, outputFiles);
+        try {
+            Path manifestPath = shardWriter.write(Paths.get(outputDir), baseName, outputExtension(),
+                    ranges, aggregator.rangesAreIndependent());
+            System.out.println("   -> Successfully aggregated and wrote " + ranges.size() + " shards listed in: " + manifestPath);
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
+            System.err.println("❌ Error writing aggregated shards: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("❌ Interrupted while writing aggregated shards.");
+        }
+    }
 
+    /**
+     * The first deduplication pass over every file, in the order in which later cards override earlier ones.
+     * Partials of whole files cannot be deduplicated, so the partial store is not used while deduplicating.
+     */
+    private CardDeduplicator indexCards(List<File> jsonFiles) {
+        if (config.partialStoreDir() != null && !config.partialStoreDir().isEmpty()) {
+            System.out.println("   -> Deduplicating cards, so every file is parsed instead of using stored partials.");
+        }
+        long start = System.nanoTime();
+        CardDeduplicator cardDeduplicator = new CardDeduplicator();
         for (File inputFile : jsonFiles) {
             try {
-                InputFile inputData = objectMapper.readValue(inputFile, InputFile.class);
-                if (inputData.getCards() != null) {
-                    allCards.addAll(inputData.getCards());
-                }
+                cardDeduplicator.index(inputFile, cardReader);
             } catch (IOException e) {
-                System.err.println("❌ Error reading file for aggregation " + inputFile.getName() + ": " + e.getMessage());
+                System.err.println("❌ Error indexing file for deduplication " + inputFile.getName() + ": " + e.getMessage());
             }
         }
+        System.out.println("   -> Indexed " + cardDeduplicator.distinctCards() + " card numbers (dedup by "
+                + config.dedup().name().toLowerCase(Locale.ROOT).replace('_', '-') + ") in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms.");
+        return cardDeduplicator;
+    }
 
-        if (allCards.isEmpty()) {
-            System.out.println("🟡 No card data found across all files to aggregate.");
-            return;
+    private Consumer<Card> latestOnly(File inputFile, Consumer<Card> consumer) {
+        return deduplicator == null ? consumer : deduplicator.latestOnly(inputFile, consumer);
+    }
+
+    /**
+     * Opens the configured partial store and drops the partials of input files that are gone.
+     * @return null if no store is configured or it cannot be used, in which case every file is parsed.
+     */
+    private PartialStore openPartialStore(List<File> jsonFiles) {
+        if (config.partialStoreDir() == null || config.partialStoreDir().isEmpty()) {
+            return null;
+        }
+        try {
+            PartialStore partialStore = new PartialStore(Paths.get(config.partialStoreDir()), dateConverter);
+            partialStore.retainOnly(jsonFiles);
+            return partialStore;
+        } catch (IOException e) {
+            System.err.println("❌ Error opening partial store, parsing every file: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads up to {@code threads} files at a time into their own aggregators on a ForkJoinPool,
+     * then merges the partial results in file order so the output matches a sequential run.
+     * Without a partial store, a file too large to hold as one partial result is streamed straight
+     * into the shared aggregator instead.
+     */
+    private void aggregateFilesInParallel(List<File> jsonFiles, SpillingAggregator aggregator, PartialStore partialStore) {
+        long perFileBudget = memoryBudgetBytes() / config.threads();
+        ForkJoinPool pool = new ForkJoinPool(config.threads());
+        runMetrics.watchQueue(pool::getQueuedSubmissionCount);
+        Deque<ForkJoinTask<CardAggregator>> inFlight = new ArrayDeque<>();
+        try {
+            for (File inputFile : jsonFiles) {
+                if (partialStore == null && inputFile.length() > perFileBudget) {
+                    while (!inFlight.isEmpty()) {
+                        mergePartial(inFlight.poll(), aggregator);
+                    }
+                    aggregateFile(inputFile, aggregator);
+                    continue;
+                }
+                if (inFlight.size() == config.threads()) {
+                    mergePartial(inFlight.poll(), aggregator);
+                }
+                inFlight.add(pool.submit(() -> partialStore == null
+                        ? readPartial(inputFile) : loadOrReadPartial(inputFile, partialStore)));
+            }
+            while (!inFlight.isEmpty()) {
+                mergePartial(inFlight.poll(), aggregator);
+            }
+        } finally {
+            pool.shutdownNow();
         }
+    }
 
-        OutputFile finalOutput = transformData(allCards);
+    private void aggregateFile(File inputFile, SpillingAggregator aggregator) {
+        try {
+            RunMetrics.FileMetrics metrics = runMetrics.startFile(inputFile);
+            metrics.addCards(metrics.time(RunMetrics.Phase.PARSE,
+                    () -> cardReader.read(inputFile, latestOnly(inputFile, aggregator::add))));
+            runMetrics.finishFile(metrics);
+        } catch (IOException e) {
+            System.err.println("❌ Error reading file for aggregation " + inputFile.getName() + ": " + e.getMessage());
+        }
+    }
 
-        String timestamp = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss").format(java.time.LocalDateTime.now());
-        String outputFileName = "aggregated-result_" + timestamp + ".json"; //
-        Path outputPath = Paths.get(outputDir, outputFileName);
+    private CardAggregator readPartial(File inputFile) {
+        CardAggregator partial = new CardAggregator(dateConverter);
+        readPartial(inputFile, partial);
+        return partial;
+    }
 
+    /**
+     * Reads a file into its own aggregator. Like {@link #aggregateFile}, the cards read before an error are kept,
+     * so the output does not depend on how many threads read the files.
+     * @return Whether the whole file was read.
+     */
+    private boolean readPartial(File inputFile, CardAggregator partial) {
         try {
-            objectMapper.writeValue(outputPath.toFile(), finalOutput);
-            System.out.println("   -> Successfully aggregated and wrote: " + outputPath);
+            RunMetrics.FileMetrics metrics = runMetrics.startFile(inputFile);
+            metrics.addCards(metrics.time(RunMetrics.Phase.PARSE,
+                    () -> cardReader.read(inputFile, latestOnly(inputFile, partial::add))));
+            runMetrics.finishFile(metrics);
+            return true;
         } catch (IOException e) {
-            System.err.println("❌ Error writing aggregated file: " + e.getMessage());
+            System.err.println("❌ Error reading file for aggregation " + inputFile.getName() + ": " + e.getMessage());
+            return false;
         }
     }
 
+    /**
+     * Returns the stored partial of an unchanged file, or parses the file and stores its partial.
+     * A file that fails to parse is not stored, so it is read again on the next run; the cards read before
+     * the error are still returned.
+     */
+    private CardAggregator loadOrReadPartial(File inputFile, PartialStore partialStore) {
+        RunMetrics.FileMetrics metrics = runMetrics.startFile(inputFile);
+        long startAllocated = RunMetrics.threadAllocatedBytes();
+        long start = System.nanoTime();
+        CardAggregator partial = partialStore.load(inputFile);
+        if (partial != null) {
+            metrics.add(RunMetrics.Phase.PARSE, System.nanoTime() - start);
+            metrics.addAllocatedBytes(startAllocated, RunMetrics.threadAllocatedBytes());
+            metrics.addCards(partial.cardCount());
+            runMetrics.finishFile(metrics);
+            return partial;
+        }
+        partial = new CardAggregator(dateConverter);
+        if (readPartial(inputFile, partial)) {
+            try {
+                partialStore.save(inputFile, partial);
+            } catch (IOException e) {
+                System.err.println("❌ Error storing partial for " + inputFile.getName() + ": " + e.getMessage());
+            }
+        }
+        return partial;
+    }
+
+    private static void mergePartial(ForkJoinTask<CardAggregator> pending, SpillingAggregator aggregator) {
+        aggregator.addAll(pending.join());
+    }
+
+    /**
+     * JSON output keeps the input file name without any .gz; other formats swap the extension for their own.
+     * Compressed output then appends the compression's extension.
+     */
+    private String outputFileName(File inputFile) {
+        String name = InputFiles.uncompressedName(inputFile);
+        if (config.outputFormat() != OutputFormat.JSON) {
+            int extensionStart = name.lastIndexOf('.');
+            name = (extensionStart > 0 ? name.substring(0, extensionStart) : name) + config.outputFormat().extension();
+        }
+        return name + config.outputCompression().extension();
+    }
+
+    private String outputExtension() {
+        return config.outputFormat().extension() + config.outputCompression().extension();
+    }
+
+    private long memoryBudgetBytes() {
+        return config.memoryBudgetBytes() > 0 ? config.memoryBudgetBytes() : Runtime.getRuntime().maxMemory() / 4;
+    }
+
     /**
      * The core data transformation logic.
+     * Large lists are grouped in parallel chunks when more than one thread is configured;
+     * the result is the same as the sequential grouping.
      * @param cards A list of cards to be transformed.
      * @return An OutputFile object representing the new data structure.
      */
     public OutputFile transformData(List<Card> cards) {
-        // Group all cards by account number
-        Map<String, List<Card>> cardsByAccount = cards.stream()
-                .collect(Collectors.groupingBy(Card::getAccountNumber));
-
-        List<Account> accounts = cardsByAccount.entrySet().stream()
-                // Map each entry (account number + list of cards) to an Account object
-                .map(entry -> {
-                    String accountNumber = entry.getKey();
-                    List<Card> accountCards = entry.getValue();
-
-                    // Within each account, group cards by product name
-                    Map<String, List<Card>> cardsByProduct = accountCards.stream()
-                            .collect(Collectors.groupingBy(Card::getProductName));
-
-                    // Map each product entry to a Product object
-                    List<Product> products = cardsByProduct.entrySet().stream()
-                            .map(productEntry -> {
-                                String productName = productEntry.getKey();
-                                List<Card> productCards = productEntry.getValue();
-
-                        // Sum balances for the same product
-                                BigDecimal totalBalance = productCards.stream()
-                                        .map(card -> new BigDecimal(card.getBalance()))
-                                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                        // Create and sort card details
-                                List<CardDetail> details = productCards.stream()
-                                        .map(card -> new CardDetail(
-                                                card.getCardNumber(),
-                                                card.getBalance(),
-                                                convertDate(card.getExpireDate()) // Convert date format
-                                        ))
-                            .sorted(Comparator.comparing(CardDetail::getCardNumber))
-                                        .collect(Collectors.toList());
-
-                                return new Product(productName, totalBalance.toPlainString(), details);
-                            })
-                            .collect(Collectors.toList());
-
-                    return new Account(accountNumber, products);
-                })
-                // Sort accounts by account number
-                .sorted(Comparator.comparing(Account::getAccountNumber))
-                .collect(Collectors.toList());
-
-        return new OutputFile(accounts.size(), accounts);
-    }
-
-    /**
-     * Converts a date string from Buddhist (ddMMyyyy) to Christian (yyyy-MM-dd).
-     * @param buddhistDateStr The input date string, e.g., "01092568".
-     * @return The formatted Christian date string, e.g., "2025-09-01".
-     */
-    private String convertDate(String buddhistDateStr) {
-        try {
-            LocalDate buddhistDate = LocalDate.parse(buddhistDateStr, INPUT_DATE_FORMAT);
-            // Convert from Buddhist year to Christian year by subtracting 543
-            LocalDate christianDate = buddhistDate.minusYears(543);
-            return christianDate.format(OUTPUT_DATE_FORMAT);
-        } catch (DateTimeParseException e) {
-            System.err.println("⚠️ Could not parse date: '" + buddhistDateStr + "'. Returning original value.");
-            return buddhistDateStr; // Fallback
+        if (config.threads() > 1 && cards.size() > ParallelTransformer.CHUNK_SIZE) {
+            return new ParallelTransformer(config.threads(), dateConverter).aggregate(cards).toOutputFile();
+        }
+        if (config.columnarBatches()) {
+            CardBatch batch = new CardBatch(dateConverter);
+            cards.forEach(batch::add);
+            return batch.toOutputFile();
         }
+        CardAggregator aggregator = new CardAggregator(dateConverter);
+        cards.forEach(aggregator::add);
+        return aggregator.toOutputFile();
     }
 
     private List<File> findInputFiles() {
         try (Stream<Path> stream = Files.list(Paths.get(inputDir))) {
             return stream
                     .map(Path::toFile)
-                    .filter(file -> file.isFile() && file.getName().toLowerCase().endsWith(".json"))
+                    .filter(file -> file.isFile() && InputFiles.isInputFile(file.getName()))
                     .collect(Collectors.toList());
         } catch (IOException e) {
             System.err.println("❌ Error reading input directory: " + e.getMessage());
@@ -203,11 +610,14 @@ public class DataProcessor {
         }
     }
 
+    /**
+     * Waits for every submitted task to finish. Work is only cancelled if the waiting thread is interrupted.
+     */
     private void shutdownExecutor(ExecutorService executor) {
         executor.shutdown();
         try {
-            if (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
+            while (!executor.awaitTermination(60, TimeUnit.SECONDS)) {
+                System.out.println("⏳ Still processing files...");
             }
         } catch (InterruptedException e) {
             executor.shutdownNow();
@@ -0,0 +1,139 @@
+package org.example;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Converts expiry dates from Buddhist (ddMMyyyy) to Christian (yyyy-MM-dd).
+ * The usual 8-digit layout is parsed by hand, and results are memoized per raw string because
+ * expiry dates repeat heavily. Unparseable dates are counted instead of logged one by one.
+ * Safe to share between threads.
+ */
+public class DateConverter {
+    public static final int DEFAULT_CACHE_SIZE = 4_096;
+
+    private static final int BUDDHIST_YEAR_OFFSET = 543;
+    private static final DateTimeFormatter INPUT_DATE_FORMAT = DateTimeFormatter.ofPattern("ddMMyyyy");
+    private static final DateTimeFormatter OUTPUT_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final int maxCacheSize;
+    private final Map<String, String> cache = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder parseFailures = new LongAdder();
+
+    public DateConverter() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param maxCacheSize The number of distinct raw dates to remember. Once full, new dates are converted without caching.
+     */
+    public DateConverter(int maxCacheSize) {
+        this.maxCacheSize = maxCacheSize;
+    }
+
+    /**
+     * Converts a date string from Buddhist (ddMMyyyy) to Christian (yyyy-MM-dd).
+     * @param buddhistDateStr The input date string, e.g., "01092568".
+     * @return The formatted Christian date string, e.g., "2025-09-01", or the input unchanged if it cannot be parsed.
+     */
+    public String convert(String buddhistDateStr) {
+        String cached = cache.get(buddhistDateStr);
+        if (cached != null) {
+            cacheHits.increment();
+            // A date that could not be parsed is cached as the input itself
+            if (cached.equals(buddhistDateStr)) {
+                parseFailures.increment();
+            }
+            return cached;
+        }
+        String converted = convertUncached(buddhistDateStr);
+        if (cache.size() < maxCacheSize) {
+            cache.putIfAbsent(buddhistDateStr, converted);
+        }
+        return converted;
+    }
+
+    public long cacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * The number of conversions (cached or not) whose input could not be parsed as a date.
+     */
+    public long parseFailures() {
+        return parseFailures.sum();
+    }
+
+    private String convertUncached(String buddhistDateStr) {
+        String converted = convertFixedLayout(buddhistDateStr);
+        if (converted != null) {
+            return converted;
+        }
+        try {
+            LocalDate buddhistDate = LocalDate.parse(buddhistDateStr, INPUT_DATE_FORMAT);
+            // Convert from Buddhist year to Christian year by subtracting 543
+            return buddhistDate.minusYears(BUDDHIST_YEAR_OFFSET).format(OUTPUT_DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            parseFailures.increment();
+            return buddhistDateStr; // Fallback
+        }
+    }
+
+    /**
+     * Handles exactly eight digits with an in-range day and month, giving the same result as the
+     * DateTimeFormatter path: a day past the end of the month is moved back to the last valid day,
+     * both when parsing and after subtracting the year offset.
+     * @return null if the input needs the general parser.
+     */
+    private static String convertFixedLayout(String date) {
+        if (date == null || date.length() != 8) {
+            return null;
+        }
+        for (int i = 0; i < 8; i++) {
+            char c = date.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        int day = twoDigits(date, 0);
+        int month = twoDigits(date, 2);
+        int buddhistYear = twoDigits(date, 4) * 100 + twoDigits(date, 6);
+        int year = buddhistYear - BUDDHIST_YEAR_OFFSET;
+        if (month < 1 || month > 12 || day < 1 || day > 31 || buddhistYear < 1 || year < 1) {
+            return null;
+        }
+        day = Math.min(day, monthLength(month, buddhistYear));
+        day = Math.min(day, monthLength(month, year));
+
+        char[] converted = new char[10];
+        converted[0] = (char) ('0' + year / 1000);
+        converted[1] = (char) ('0' + year / 100 % 10);
+        converted[2] = (char) ('0' + year / 10 % 10);
+        converted[3] = (char) ('0' + year % 10);
+        converted[4] = '-';
+        converted[5] = (char) ('0' + month / 10);
+        converted[6] = (char) ('0' + month % 10);
+        converted[7] = '-';
+        converted[8] = (char) ('0' + day / 10);
+        converted[9] = (char) ('0' + day % 10);
+        return new String(converted);
+    }
+
+    private static int twoDigits(String value, int offset) {
+        return (value.charAt(offset) - '0') * 10 + (value.charAt(offset + 1) - '0');
+    }
+
+    private static int monthLength(int month, int year) {
+        return switch (month) {
+            case 2 -> Year.isLeap(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+}
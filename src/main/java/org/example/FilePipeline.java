@@ -0,0 +1,197 @@
+package org.example;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs per-file work as three stages (read, transform, write) connected by bounded queues.
+ * Each stage has its own worker count, so disk and CPU work overlap. A full queue blocks the stage
+ * feeding it, which keeps at most a queue's worth of files in memory between stages.
+ * The run ends when every stage has drained its input, with no timeout.
+ */
+class FilePipeline {
+    /**
+     * The work a stage does for one file. A failure is reported and the file is dropped from the pipeline.
+     */
+    @FunctionalInterface
+    interface StageWork<I, O> {
+        O apply(I item) throws Exception;
+    }
+
+    private final int queueCapacity;
+    private final List<Stage<?, ?>> stages = new CopyOnWriteArrayList<>();
+
+    public FilePipeline(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Runs the three stages over the given files and blocks until all of them are done.
+     */
+    public <R, T> void run(List<File> files,
+                           int readerThreads, StageWork<File, R> read,
+                           int transformThreads, StageWork<R, T> transform,
+                           int writerThreads, StageWork<T, ?> write) throws InterruptedException {
+        // The file list is already in memory, so only the queues between stages need a bound
+        BlockingQueue<Optional<File>> pending = new LinkedBlockingQueue<>();
+        for (File file : files) {
+            pending.add(Optional.of(file));
+        }
+        BlockingQueue<Optional<R>> readQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Optional<T>> transformedQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        stages.clear();
+        Stage<File, R> readStage = new Stage<>("read", readerThreads, pending, readQueue, read);
+        Stage<R, T> transformStage = new Stage<>("transform", transformThreads, readQueue, transformedQueue, transform);
+        Stage<T, ?> writeStage = new Stage<>("write", writerThreads, transformedQueue, null, write);
+        readStage.next = transformStage;
+        transformStage.next = writeStage;
+        stages.add(readStage);
+        stages.add(transformStage);
+        stages.add(writeStage);
+
+        ExecutorService workers = Executors.newCachedThreadPool();
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (Stage<?, ?> stage : stages) {
+                stage.start(workers, running);
+            }
+            // Each stage is told to stop once the stage before it has finished
+            readStage.signalEnd();
+            for (Future<?> worker : running) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Pipeline worker failed unexpectedly", e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Files waiting in the queues between stages right now. Safe to call from any thread while the pipeline runs.
+     */
+    public int queuedItems() {
+        int queued = 0;
+        for (Stage<?, ?> stage : stages) {
+            if (stage.output != null) {
+                queued += stage.output.size();
+            }
+        }
+        return queued;
+    }
+
+    public void printStats() {
+        for (Stage<?, ?> stage : stages) {
+            System.out.println(stage.stats());
+        }
+    }
+
+    private static class Stage<I, O> {
+        private final String name;
+        private final int workerCount;
+        private final BlockingQueue<Optional<I>> input;
+        private final BlockingQueue<Optional<O>> output;
+        private final StageWork<I, O> work;
+
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private final AtomicLong firstStartNanos = new AtomicLong(Long.MAX_VALUE);
+        private final AtomicLong lastEndNanos = new AtomicLong();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+        private final LongAdder blockedNanos = new LongAdder();
+        private final AtomicInteger maxInputDepth = new AtomicInteger();
+        private Stage<O, ?> next;
+
+        Stage(String name, int workerCount, BlockingQueue<Optional<I>> input,
+              BlockingQueue<Optional<O>> output, StageWork<I, O> work) {
+            this.name = name;
+            this.workerCount = Math.max(1, workerCount);
+            this.input = input;
+            this.output = output;
+            this.work = work;
+        }
+
+        void start(ExecutorService workers, List<Future<?>> running) {
+            activeWorkers.set(workerCount);
+            for (int i = 0; i < workerCount; i++) {
+                running.add(workers.submit(() -> {
+                    runWorker();
+                    return null;
+                }));
+            }
+        }
+
+        /**
+         * Queues one end marker per worker after the items already queued.
+         */
+        void signalEnd() throws InterruptedException {
+            for (int i = 0; i < workerCount; i++) {
+                input.put(Optional.empty());
+            }
+        }
+
+        private void runWorker() throws InterruptedException {
+            try {
+                while (true) {
+                    maxInputDepth.accumulateAndGet(input.size(), Math::max);
+                    Optional<I> item = input.take();
+                    if (item.isEmpty()) {
+                        return;
+                    }
+                    long start = System.nanoTime();
+                    firstStartNanos.accumulateAndGet(start, Math::min);
+                    O result;
+                    try {
+                        result = work.apply(item.get());
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        failed.increment();
+                        System.err.println("❌ Pipeline " + name + " stage failed: " + e.getMessage());
+                        continue;
+                    } finally {
+                        long end = System.nanoTime();
+                        busyNanos.add(end - start);
+                        lastEndNanos.accumulateAndGet(end, Math::max);
+                    }
+                    processed.increment();
+                    if (output != null) {
+                        long putStart = System.nanoTime();
+                        output.put(Optional.of(result));
+                        blockedNanos.add(System.nanoTime() - putStart);
+                    }
+                }
+            } finally {
+                // The last worker out tells the next stage that no more items are coming
+                if (activeWorkers.decrementAndGet() == 0 && next != null) {
+                    next.signalEnd();
+                }
+            }
+        }
+
+        String stats() {
+            long items = processed.sum();
+            long wallNanos = Math.max(0, lastEndNanos.get() - firstStartNanos.get());
+            double perSecond = wallNanos == 0 ? 0 : items * 1_000_000_000.0 / wallNanos;
+            return String.format("   📊 %-9s workers=%d, files=%d, failed=%d, %.1f files/s, busy=%d ms, "
+                            + "max input queue=%d, blocked on full output queue=%d ms",
+                    name, workerCount, items, failed.sum(), perSecond, busyNanos.sum() / 1_000_000,
+                    maxInputDepth.get(), blockedNanos.sum() / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.example;
+
+import org.example.model.Account;
+import org.example.model.OutputFile;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Cards grouped by account number and product name, ready to be written as output.
+ */
+interface GroupedCards {
+    int accountCount();
+
+    /**
+     * The accounts sorted by account number, with card details sorted by card number within each product.
+     * Accounts are built as the iterator advances.
+     */
+    Iterator<Account> accounts();
+
+    /**
+     * Builds the whole output structure at once.
+     */
+    default OutputFile toOutputFile() {
+        List<Account> accounts = new ArrayList<>(accountCount());
+        accounts().forEachRemaining(accounts::add);
+        return new OutputFile(accounts.size(), accounts);
+    }
+}
@@ -0,0 +1,212 @@
+package org.example;
+
+import org.example.model.AppConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Processes .json and .json.gz files continuously as they land in the Input directory.
+ * Created and modified files are watched until their size and modification time stop changing for the
+ * configured quiet period, which marks them as completely written. Complete files are collected into a
+ * micro-batch that is processed once it holds enough files or its time window has passed.
+ * A file is processed again only if it changes after it was processed.
+ * Changes to the configuration file are picked up the same way: once it has been quiet, it is parsed again and the
+ * next batch runs on a processor built from it, with executors sized by the new settings. A batch that is already
+ * running finishes with the configuration it started with, and an invalid file leaves the current one in place.
+ */
+class IngestDaemon {
+    private final Path inputDir;
+    private final Path configFile;
+    private final Function<AppConfig, DataProcessor> processorFactory;
+    private DataProcessor processor;
+    private int batchMaxFiles;
+    private long batchWindowNanos;
+    private long writeQuietNanos;
+
+    // Files seen but not yet complete, in arrival order
+    private final Map<Path, PendingFile> pending = new LinkedHashMap<>();
+    // A file that changes again while waiting in the batch is only processed once
+    private final Set<File> batch = new LinkedHashSet<>();
+    private final Map<Path, FileState> processed = new HashMap<>();
+    private long batchStartNanos;
+    private boolean configChanged;
+    private long configChangeNanos;
+
+    /**
+     * @param configFile The configuration file to watch, which must be in the input directory.
+     * @param processorFactory Builds the processor for a configuration, initially and after every reload.
+     */
+    public IngestDaemon(Path inputDir, Path configFile, AppConfig config, Function<AppConfig, DataProcessor> processorFactory) {
+        this.inputDir = inputDir;
+        this.configFile = configFile;
+        this.processorFactory = processorFactory;
+        applyConfig(config);
+    }
+
+    private void applyConfig(AppConfig config) {
+        this.processor = processorFactory.apply(config);
+        this.batchMaxFiles = Math.max(1, config.batchMaxFiles());
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(config.batchWindowMs());
+        this.writeQuietNanos = TimeUnit.MILLISECONDS.toNanos(config.writeQuietMs());
+    }
+
+    /**
+     * Watches the Input directory until the thread is interrupted. Files already there are processed first.
+     */
+    public void run() throws IOException, InterruptedException {
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            inputDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            System.out.println("👀 Daemon mode: watching '" + inputDir + "' for new .json and .json.gz files...");
+            scanDirectory();
+
+            while (true) {
+                WatchKey key = pending.isEmpty() && batch.isEmpty() && !configChanged
+                        ? watchService.take() // Nothing in flight, so block until something happens
+                        : watchService.poll(nextWakeUpNanos(), TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            scanDirectory(); // Events were lost, so look at everything again
+                        } else if (configFile.getFileName().equals(event.context())) {
+                            configChanged = true;
+                            configChangeNanos = System.nanoTime();
+                        } else if (isInputFile((Path) event.context())) {
+                            track(inputDir.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                }
+                if (configChanged && System.nanoTime() - configChangeNanos >= writeQuietNanos) {
+                    reloadConfig();
+                }
+                collectCompleteFiles();
+                processBatchIfDue();
+            }
+        }
+    }
+
+    void reloadConfig() {
+        configChanged = false;
+        if (!Files.isRegularFile(configFile)) {
+            return; // Deleted, so keep running as configured
+        }
+        System.out.println("🔄 '" + configFile.getFileName() + "' changed. Reloading the configuration...");
+        AppConfig config = ConfigParser.parse(configFile.toFile());
+        if (config == null) {
+            System.err.println("⚠️ Keeping the previous configuration.");
+            return;
+        }
+        applyConfig(config);
+    }
+
+    void scanDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(inputDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (isInputFile(file.getFileName())) {
+                    track(file);
+                }
+            }
+        }
+    }
+
+    private static boolean isInputFile(Path fileName) {
+        return InputFiles.isInputFile(fileName.toString());
+    }
+
+    private void track(Path file) {
+        pending.computeIfAbsent(file, path -> new PendingFile()).lastChangeNanos = System.nanoTime();
+    }
+
+    /**
+     * Moves files whose size and modification time have been stable for the quiet period into the batch.
+     */
+    void collectCompleteFiles() {
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<Path, PendingFile>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, PendingFile> entry = it.next();
+            File file = entry.getKey().toFile();
+            if (!file.isFile()) {
+                it.remove(); // Deleted or renamed away before it was complete
+                continue;
+            }
+            PendingFile pendingFile = entry.getValue();
+            FileState state = new FileState(file.length(), file.lastModified());
+            if (!state.equals(pendingFile.lastState)) {
+                pendingFile.lastState = state;
+                pendingFile.lastChangeNanos = now;
+            } else if (now - pendingFile.lastChangeNanos >= writeQuietNanos) {
+                it.remove();
+                if (!state.equals(processed.get(entry.getKey()))) {
+                    if (batch.isEmpty()) {
+                        batchStartNanos = now;
+                    }
+                    batch.add(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes the batch once it holds enough files or its first file has waited for the batch window.
+     */
+    void processBatchIfDue() {
+        if (batch.size() >= batchMaxFiles
+                || (!batch.isEmpty() && System.nanoTime() - batchStartNanos >= batchWindowNanos)) {
+            processBatch();
+        }
+    }
+
+    private void processBatch() {
+        List<File> files = new ArrayList<>(batch);
+        batch.clear();
+        for (File file : files) {
+            processed.put(file.toPath(), new FileState(file.length(), file.lastModified()));
+        }
+        long start = System.nanoTime();
+        System.out.println("🚀 Processing a batch of " + files.size() + " new files...");
+        processor.processNewFiles(files);
+        System.out.println("   -> Batch done in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+    }
+
+    /**
+     * How long to wait for more events before the next pending file could be complete or the batch is due.
+     */
+    private long nextWakeUpNanos() {
+        long now = System.nanoTime();
+        long wait = batch.isEmpty() ? Long.MAX_VALUE : batchStartNanos + batchWindowNanos - now;
+        if (configChanged) {
+            wait = Math.min(wait, configChangeNanos + writeQuietNanos - now);
+        }
+        for (PendingFile pendingFile : pending.values()) {
+            wait = Math.min(wait, pendingFile.lastChangeNanos + writeQuietNanos - now);
+        }
+        // Never spin, even when something is already due
+        return Math.max(wait, TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private record FileState(long size, long lastModified) {}
+
+    private static class PendingFile {
+        private FileState lastState;
+        private long lastChangeNanos;
+    }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Recognizes input files and opens them, decompressing gzip files ({@code .json.gz}) on the fly.
+ * A gzip file may hold several members one after another, as written by block-parallel compressors.
+ */
+final class InputFiles {
+    static final String GZIP_SUFFIX = ".gz";
+    private static final String JSON_SUFFIX = ".json";
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    private InputFiles() {
+    }
+
+    public static boolean isInputFile(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        return name.endsWith(JSON_SUFFIX) || name.endsWith(JSON_SUFFIX + GZIP_SUFFIX);
+    }
+
+    public static boolean isCompressed(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * Opens the file for reading, decompressed if it is a gzip file.
+     */
+    public static InputStream open(File file) throws IOException {
+        InputStream in = Files.newInputStream(file.toPath());
+        if (!isCompressed(file)) {
+            return in;
+        }
+        try {
+            return new GZIPInputStream(new BufferedInputStream(in, STREAM_BUFFER_BYTES), STREAM_BUFFER_BYTES);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the whole file into memory, decompressed if it is a gzip file.
+     */
+    public static byte[] readAllBytes(File file) throws IOException {
+        if (!isCompressed(file)) {
+            return Files.readAllBytes(file.toPath());
+        }
+        try (InputStream in = open(file)) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * The file name without a trailing {@code .gz}.
+     */
+    public static String uncompressedName(File file) {
+        String name = file.getName();
+        return isCompressed(file) ? name.substring(0, name.length() - GZIP_SUFFIX.length()) : name;
+    }
+}
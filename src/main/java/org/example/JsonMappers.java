@@ -0,0 +1,41 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.model.OutputFile;
+import org.example.model.OutputFormat;
+import org.example.model.RunReport;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Jackson mappers shared by the whole process, with readers and writers for the model classes built up front.
+ * A mapper introspects each class the first time it meets it and keeps the result, so sharing one mapper per format
+ * pays for that once per JVM instead of once per DataProcessor, which the daemon builds again on every reload.
+ * The binary format mappers are only created when a format is first used.
+ */
+final class JsonMappers {
+    /**
+     * Indented JSON, used for the input files, JSON output and the run report and shard manifest.
+     */
+    static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    static final ObjectReader OUTPUT_FILE_READER = JSON.readerFor(OutputFile.class);
+    static final ObjectWriter RUN_REPORT_WRITER = JSON.writerFor(RunReport.class);
+
+    private static final Map<OutputFormat, ObjectMapper> BINARY_MAPPERS = new ConcurrentHashMap<>();
+
+    private JsonMappers() {
+    }
+
+    static ObjectMapper forFormat(OutputFormat format) {
+        return format == OutputFormat.JSON ? JSON
+                : BINARY_MAPPERS.computeIfAbsent(format, binary -> new ObjectMapper(binary.newFactory()));
+    }
+
+    static ObjectReader outputFileReader(OutputFormat format) {
+        return format == OutputFormat.JSON ? OUTPUT_FILE_READER : forFormat(format).readerFor(OutputFile.class);
+    }
+}
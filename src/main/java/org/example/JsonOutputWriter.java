@@ -0,0 +1,215 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.model.Account;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Writes the output JSON incrementally with a JsonGenerator.
+ * Accounts are serialized one by one as they are handed over, so the complete
+ * OutputFile tree never has to exist before writing starts.
+ * Given an ObjectMapper for a binary format such as Smile or CBOR, it writes the same document in that encoding.
+ * Files are created through {@link OutputFiles}, so they only appear under their name once complete.
+ * When indexing is on, files written with metrics also get an {@link AccountIndex} of where each account lies.
+ */
+class JsonOutputWriter {
+    private static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+
+    private final ObjectWriter accountWriter;
+    private final OutputFiles outputFiles;
+    private final boolean indexOutputs;
+
+    public JsonOutputWriter(ObjectMapper objectMapper, boolean prettyPrint) {
+        this(objectMapper, prettyPrint, new OutputFiles(1, DEFAULT_BUFFER_BYTES, false));
+    }
+
+    public JsonOutputWriter(ObjectMapper objectMapper, boolean prettyPrint, OutputFiles outputFiles) {
+        this(objectMapper, prettyPrint, outputFiles, false);
+    }
+
+    /**
+     * @param outputFiles Creates the files written to a path.
+     * @param indexOutputs Whether files written with metrics get an account index. Only meaningful for
+     *                     uncompressed JSON, where account offsets in the stream are offsets in the file.
+     */
+    public JsonOutputWriter(ObjectMapper objectMapper, boolean prettyPrint, OutputFiles outputFiles, boolean indexOutputs) {
+        ObjectWriter writer = objectMapper.writer();
+        this.accountWriter = prettyPrint
+                ? writer.with(SerializationFeature.INDENT_OUTPUT)
+                : writer.without(SerializationFeature.INDENT_OUTPUT);
+        this.outputFiles = outputFiles;
+        this.indexOutputs = indexOutputs;
+    }
+
+    /**
+     * A new index to pass to {@link #write(OutputStream, int, Iterator, RunMetrics.FileMetrics, AccountIndex)},
+     * or null if outputs are not indexed.
+     */
+    public AccountIndex newIndex() {
+        return indexOutputs ? new AccountIndex() : null;
+    }
+
+    /**
+     * Writes an OutputFile-shaped document: accountTotal first, followed by the accounts array.
+     * @param accountTotal The number of accounts the iterator will produce.
+     * @param accounts The accounts, already in output order.
+     */
+    public void write(Path outputPath, int accountTotal, Iterator<Account> accounts) throws IOException {
+        outputFiles.write(outputPath, out -> write(out, accountTotal, accounts));
+    }
+
+    /**
+     * Writes the same document to a stream, which is closed afterwards.
+     */
+    public void write(OutputStream out, int accountTotal, Iterator<Account> accounts) throws IOException {
+        try (JsonGenerator generator = accountWriter.createGenerator(out, JsonEncoding.UTF8)) {
+            write(generator, accountTotal, accounts, null, null);
+        }
+    }
+
+    /**
+     * Writes the document to a file and records it as the file's output, followed by its index if indexing is on.
+     */
+    public void write(Path outputPath, int accountTotal, Iterator<Account> accounts,
+                      RunMetrics.FileMetrics metrics) throws IOException {
+        metrics.setOutput(outputPath.getFileName().toString());
+        AccountIndex index = newIndex();
+        outputFiles.write(outputPath, out -> write(out, accountTotal, accounts, metrics, index));
+        if (index != null) {
+            index.writeFor(outputPath, outputFiles);
+        }
+    }
+
+    public void write(OutputStream out, int accountTotal, Iterator<Account> accounts,
+                      RunMetrics.FileMetrics metrics) throws IOException {
+        write(out, accountTotal, accounts, metrics, null);
+    }
+
+    /**
+     * Writes the document to a stream, which is closed afterwards, splitting the time spent into
+     * building accounts (transform), encoding them (serialize) and handing bytes to the stream (write).
+     * @param index Receives where each account lies in the stream, if not null.
+     */
+    public void write(OutputStream out, int accountTotal, Iterator<Account> accounts,
+                      RunMetrics.FileMetrics metrics, AccountIndex index) throws IOException {
+        long startAllocated = RunMetrics.threadAllocatedBytes();
+        long start = System.nanoTime();
+        MeteredOutputStream meteredOut = new MeteredOutputStream(out);
+        MeteredIterator meteredAccounts = new MeteredIterator(accounts);
+        try (JsonGenerator generator = accountWriter.createGenerator(meteredOut, JsonEncoding.UTF8)) {
+            write(generator, accountTotal, meteredAccounts, index, meteredOut);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            metrics.add(RunMetrics.Phase.TRANSFORM, meteredAccounts.nanos);
+            metrics.add(RunMetrics.Phase.WRITE, meteredOut.nanos);
+            metrics.add(RunMetrics.Phase.SERIALIZE, elapsed - meteredAccounts.nanos - meteredOut.nanos);
+            metrics.addBytesWritten(meteredOut.bytes);
+            metrics.addAllocatedBytes(startAllocated, RunMetrics.threadAllocatedBytes());
+        }
+        if (index != null) {
+            index.setOutputBytes(meteredOut.bytes);
+        }
+    }
+
+    /**
+     * @param index If not null, receives each account's position: the bytes handed to {@code out} so far
+     *              plus those still buffered in the generator.
+     */
+    private void write(JsonGenerator generator, int accountTotal, Iterator<Account> accounts,
+                       AccountIndex index, MeteredOutputStream out) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("accountTotal", accountTotal);
+        generator.writeArrayFieldStart("accounts");
+        while (accounts.hasNext()) {
+            Account account = accounts.next();
+            if (index == null) {
+                accountWriter.writeValue(generator, account);
+                continue;
+            }
+            long start = out.bytes + generator.getOutputBuffered();
+            accountWriter.writeValue(generator, account);
+            index.add(account.getAccountNumber(), start, out.bytes + generator.getOutputBuffered() - start);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Counts the bytes passed to the underlying stream and the time spent there.
+     */
+    private static class MeteredOutputStream extends FilterOutputStream {
+        private long bytes;
+        private long nanos;
+
+        MeteredOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            long start = System.nanoTime();
+            out.write(b);
+            nanos += System.nanoTime() - start;
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            out.write(b, off, len);
+            nanos += System.nanoTime() - start;
+            bytes += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            long start = System.nanoTime();
+            out.flush();
+            nanos += System.nanoTime() - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            long start = System.nanoTime();
+            out.close();
+            nanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Counts the time spent building accounts, which happens as the iterator advances.
+     */
+    private static class MeteredIterator implements Iterator<Account> {
+        private final Iterator<Account> accounts;
+        private long nanos;
+
+        MeteredIterator(Iterator<Account> accounts) {
+            this.accounts = accounts;
+        }
+
+        @Override
+        public boolean hasNext() {
+            long start = System.nanoTime();
+            boolean hasNext = accounts.hasNext();
+            nanos += System.nanoTime() - start;
+            return hasNext;
+        }
+
+        @Override
+        public Account next() {
+            long start = System.nanoTime();
+            Account account = accounts.next();
+            nanos += System.nanoTime() - start;
+            return account;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.example.model.AppConfig;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.util.Arrays;
 
 //TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
 // click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
@@ -11,20 +12,65 @@ public class Main {
     private static final String INPUT_DIR = "Input";
     private static final String OUTPUT_DIR = "Output";
     private static final String TRIGGER_FILE = "Configuration.xml";
+    private static final String DAEMON_FLAG = "--daemon";
+    private static final String WARMUP_FLAG = "--warmup";
 
     public static void main(String[] args) throws IOException {
+        if (Arrays.asList(args).contains(WARMUP_FLAG)) {
+            runWarmup();
+            return;
+        }
         System.out.println("✅ Application started. Creating directories if they don't exist.");
         Files.createDirectories(Paths.get(INPUT_DIR));
         Files.createDirectories(Paths.get(OUTPUT_DIR));
+        Thread.ofPlatform().name("startup-warmup").daemon().start(StartupWarmup::run);
 
-        System.out.println("⏳ Waiting for '" + TRIGGER_FILE + "' in the '" + INPUT_DIR + "' folder...");
+        if (Arrays.asList(args).contains(DAEMON_FLAG)) {
+            runDaemon();
+            return;
+        }
         watchForTriggerFile();
     }
 
+    /**
+     * Processes generated input in every mode over temporary directories and exits, without touching Input or Output.
+     * Run with -XX:ArchiveClassesAtExit, this records the classes of a complete run in an AppCDS archive
+     * (see the cds profile in pom.xml).
+     */
+    private static void runWarmup() throws IOException {
+        System.out.println("🔥 Warm-up run: processing generated input in every mode...");
+        StartupWarmup.run();
+        StartupWarmup.trainingRun();
+        System.out.println("✅ Warm-up run complete.");
+    }
+
+    /**
+     * Processes input files continuously as they arrive instead of waiting for a trigger file.
+     * The configuration is read from the trigger file if it is present, which is left in place
+     * and reloaded whenever it changes.
+     */
+    private static void runDaemon() {
+        Path configFile = Paths.get(INPUT_DIR, TRIGGER_FILE);
+        AppConfig config = Files.exists(configFile)
+                ? ConfigParser.parse(configFile.toFile())
+                : new AppConfig(Runtime.getRuntime().availableProcessors(), 1);
+        if (config == null) {
+            return;
+        }
+        try {
+            new IngestDaemon(Paths.get(INPUT_DIR), configFile, config,
+                    newConfig -> new DataProcessor(newConfig, INPUT_DIR, OUTPUT_DIR)).run();
+        } catch (IOException | InterruptedException e) {
+            System.err.println("❌ A critical error occurred in the daemon: " + e.getMessage());
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private static void watchForTriggerFile() {
         try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
             Path inputPath = Paths.get(INPUT_DIR);
             inputPath.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            System.out.println("⏳ Waiting for '" + TRIGGER_FILE + "' in the '" + INPUT_DIR + "' folder...");
 
             while (true) {
                 WatchKey key = watchService.take(); // This is a blocking call
@@ -0,0 +1,84 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through memory-mapped windows of at most {@link #DEFAULT_WINDOW_BYTES} each.
+ * Data comes straight from the page cache instead of being copied by read() system calls,
+ * and files larger than 2 GB are handled by mapping the next window once the current one is used up.
+ * A mapping is released when its buffer is garbage collected, not when the stream is closed.
+ */
+class MappedFileInputStream extends InputStream {
+    static final long DEFAULT_WINDOW_BYTES = 256L * 1024 * 1024;
+
+    private final long windowBytes;
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    public MappedFileInputStream(Path path) throws IOException {
+        this(path, DEFAULT_WINDOW_BYTES);
+    }
+
+    MappedFileInputStream(Path path, long windowBytes) throws IOException {
+        this.windowBytes = windowBytes;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureWindow()) {
+            return -1;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+        int count = Math.min(length, window.remaining());
+        window.get(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return window == null ? (int) Math.min(size, Integer.MAX_VALUE) : window.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    /**
+     * Maps the next window if the current one is exhausted.
+     * @return false at the end of the file.
+     */
+    private boolean ensureWindow() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        if (window != null) {
+            windowStart += window.capacity();
+        }
+        if (windowStart >= size) {
+            return false;
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(windowBytes, size - windowStart));
+        return true;
+    }
+}
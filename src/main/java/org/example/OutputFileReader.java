@@ -0,0 +1,54 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.OutputFile;
+import org.example.model.OutputFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Reads output files back in any of the output formats, chosen by file extension, gzip-compressed or not.
+ * Run from the command line, it prints a file as indented JSON, or converts it when a target file is given:
+ * {@code java -cp rearrange-data.jar org.example.OutputFileReader aggregated-result.smile [result.json]}
+ */
+public class OutputFileReader {
+    private OutputFileReader() {
+    }
+
+    public static OutputFile read(Path outputPath) throws IOException {
+        try (InputStream in = InputFiles.open(outputPath.toFile())) {
+            return JsonMappers.outputFileReader(formatOf(outputPath)).readValue(in);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException If the extension is not one of the output formats.
+     */
+    public static OutputFormat formatOf(Path outputPath) {
+        String name = InputFiles.uncompressedName(outputPath.toFile());
+        int extensionStart = name.lastIndexOf('.');
+        if (extensionStart < 0) {
+            throw new IllegalArgumentException("Cannot tell the output format of " + name + " without an extension");
+        }
+        return OutputFormat.fromName(name.substring(extensionStart + 1));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: OutputFileReader <output file> [converted JSON file]");
+            System.exit(1);
+        }
+        OutputFile outputFile = read(Paths.get(args[0]));
+        ObjectMapper jsonMapper = JsonMappers.JSON;
+        if (args.length == 2) {
+            jsonMapper.writeValue(new File(args[1]), outputFile);
+            System.out.println("✅ Converted " + outputFile.getAccountTotal() + " accounts to " + args[1]);
+        } else {
+            System.out.println(jsonMapper.writeValueAsString(outputFile));
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates output files so that they only ever appear under their final name complete.
+ * Content goes through a FileChannel into a hidden temporary file next to the target, which is optionally
+ * forced to disk and then atomically renamed. Writes are staged in direct buffers taken from a pool shared
+ * by all writers, so the channel writes straight from them instead of copying each chunk into a temporary one.
+ * When every pooled buffer is in use, a writer gets a heap buffer of its own rather than waiting.
+ * Files named {@code *.gz} are gzip-compressed in parallel blocks on the way.
+ */
+class OutputFiles {
+    /**
+     * Writes the content of one output file.
+     */
+    @FunctionalInterface
+    interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final int bufferBytes;
+    private final boolean fsync;
+    private final BlockingQueue<ByteBuffer> pooledBuffers;
+    private final AtomicInteger unallocatedBuffers;
+    private final AtomicLong tempFileCounter = new AtomicLong();
+    private final String tempFileTag = "." + ProcessHandle.current().pid() + "-";
+
+    /**
+     * @param poolSize The most direct buffers kept for reuse.
+     * @param bufferBytes The size of each buffer.
+     * @param fsync Whether each file is forced to disk before it is renamed.
+     */
+    public OutputFiles(int poolSize, int bufferBytes, boolean fsync) {
+        this.bufferBytes = bufferBytes;
+        this.fsync = fsync;
+        this.pooledBuffers = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.unallocatedBuffers = new AtomicInteger(Math.max(1, poolSize));
+    }
+
+    /**
+     * Writes a file through a temporary file and renames it to the target once the content is complete,
+     * replacing any existing file. If writing fails, the temporary file is deleted and the target is left as it was.
+     * The content may close the stream it is given.
+     */
+    public void write(Path target, Content content) throws IOException {
+        Path tempPath = target.resolveSibling("." + target.getFileName() + tempFileTag
+                + tempFileCounter.incrementAndGet() + TEMP_SUFFIX);
+        try {
+            // Both streams are resources, so the file is closed even if the compressing stream cannot be created.
+            // Closing the file stream again after the compressing stream has closed it does nothing.
+            try (OutputStream fileOut = new ChannelOutputStream(tempPath);
+                 OutputStream out = target.getFileName().toString().endsWith(InputFiles.GZIP_SUFFIX)
+                         ? new ParallelGzipOutputStream(fileOut) : fileOut) {
+                content.writeTo(out);
+            }
+            move(tempPath, target);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    public void write(Path target, byte[] content) throws IOException {
+        write(target, out -> out.write(content));
+    }
+
+    private void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (fsync) {
+            forceDirectory(target.toAbsolutePath().getParent());
+        }
+    }
+
+    /**
+     * Makes the rename itself durable. Not every platform can open a directory as a channel, in which case
+     * the rename is left to the file system.
+     */
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Opening a directory is not supported on Windows
+        }
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = pooledBuffers.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (unallocatedBuffers.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            return ByteBuffer.allocateDirect(bufferBytes);
+        }
+        return ByteBuffer.allocate(bufferBytes);
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        if (buffer.isDirect()) {
+            buffer.clear();
+            pooledBuffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Fills a pooled buffer and writes it to the channel whenever it is full. Closing flushes the rest,
+     * forces the file to disk if configured, and returns the buffer to the pool.
+     */
+    private class ChannelOutputStream extends OutputStream {
+        private final FileChannel channel;
+        private ByteBuffer buffer;
+
+        ChannelOutputStream(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = acquireBuffer();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int chunk = Math.min(len, buffer.remaining());
+                buffer.put(b, off, chunk);
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        /**
+         * Closes the stream; closing it again does nothing.
+         */
+        @Override
+        public void close() throws IOException {
+            if (buffer == null) {
+                return;
+            }
+            try {
+                drain();
+                if (fsync) {
+                    channel.force(true);
+                }
+            } finally {
+                releaseBuffer(buffer);
+                buffer = null;
+                channel.close();
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
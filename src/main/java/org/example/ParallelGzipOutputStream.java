@@ -0,0 +1,131 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip-compresses a stream in fixed-size blocks on a shared pool of compressor threads, the way pigz does.
+ * Every block becomes a complete gzip member, and the members are written in order, which gzip readers
+ * (including GZIPInputStream) decompress as one stream. Blocks are compressed independently,
+ * so the ratio is slightly worse than a single member, but compression no longer runs on one thread.
+ * At most a few blocks per pool thread are in flight, which bounds the memory held.
+ * The compressors are plain daemon threads rather than the common ForkJoinPool, so a writer running on a
+ * ForkJoinPool of its own waits for them without joining a task of another pool.
+ */
+class ParallelGzipOutputStream extends OutputStream {
+    static final int DEFAULT_BLOCK_BYTES = 1024 * 1024;
+
+    private final OutputStream out;
+    private final int blockBytes;
+    private static final int COMPRESSOR_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService COMPRESSORS = Executors.newFixedThreadPool(COMPRESSOR_THREADS,
+            Thread.ofPlatform().name("gzip-compressor-", 0).daemon().factory());
+
+    private final int maxInFlight = 2 * COMPRESSOR_THREADS + 1;
+    private final Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+    private byte[] block;
+    private int blockLength;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out) {
+        this(out, DEFAULT_BLOCK_BYTES);
+    }
+
+    ParallelGzipOutputStream(OutputStream out, int blockBytes) {
+        this.out = out;
+        this.blockBytes = blockBytes;
+        this.block = new byte[blockBytes];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (blockLength == blockBytes) {
+            submitBlock();
+        }
+        block[blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (blockLength == blockBytes) {
+                submitBlock();
+            }
+            int chunk = Math.min(len, blockBytes - blockLength);
+            System.arraycopy(b, off, block, blockLength, chunk);
+            blockLength += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    /**
+     * Compresses the last block, writes every remaining member and closes the underlying stream.
+     * Output that fits in one block is compressed on the calling thread.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (inFlight.isEmpty()) {
+                out.write(compress(block, blockLength));
+            } else {
+                if (blockLength > 0) {
+                    submitBlock();
+                }
+                while (!inFlight.isEmpty()) {
+                    writeOldest();
+                }
+            }
+        } finally {
+            block = null;
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (inFlight.size() >= maxInFlight) {
+            writeOldest();
+        }
+        byte[] full = block;
+        int length = blockLength;
+        inFlight.add(COMPRESSORS.submit(() -> compress(full, length)));
+        block = new byte[blockBytes];
+        blockLength = 0;
+    }
+
+    private void writeOldest() throws IOException {
+        try {
+            out.write(inFlight.poll().get());
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof UncheckedIOException unchecked ? unchecked.getCause()
+                    : new IOException("Failed to compress output block", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing output");
+        }
+    }
+
+    private static byte[] compress(byte[] data, int length) {
+        ByteArrayOutputStream member = new ByteArrayOutputStream(Math.max(64, length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(member, Math.max(512, Math.min(length, 64 * 1024)))) {
+            gzip.write(data, 0, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return member.toByteArray();
+    }
+}
@@ -0,0 +1,76 @@
+package org.example;
+
+import org.example.model.Card;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Groups a large card list on a ForkJoinPool.
+ * The list is split in halves until the chunks are small enough, each chunk is grouped into its own
+ * CardAggregator, and the partial results are merged left to right. Because merging keeps input order,
+ * the output is the same as grouping the list sequentially.
+ */
+class ParallelTransformer {
+    static final int CHUNK_SIZE = 8_192;
+
+    private final int parallelism;
+    private final DateConverter dateConverter;
+
+    public ParallelTransformer(int parallelism, DateConverter dateConverter) {
+        this.parallelism = parallelism;
+        this.dateConverter = dateConverter;
+    }
+
+    public CardAggregator aggregate(List<Card> cards) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new AggregateTask(cards, 0, cards.size(), dateConverter));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Groups the list on the ForkJoinPool the caller is running in, so idle workers of that pool pick up the chunks.
+     * Called from outside a ForkJoinPool, it uses the common pool.
+     */
+    public CardAggregator aggregateInCurrentPool(List<Card> cards) {
+        return new AggregateTask(cards, 0, cards.size(), dateConverter).invoke();
+    }
+
+    @SuppressWarnings("serial") // Tasks are never serialized
+    private static class AggregateTask extends RecursiveTask<CardAggregator> {
+        private final List<Card> cards;
+        private final int from;
+        private final int to;
+        private final DateConverter dateConverter;
+
+        AggregateTask(List<Card> cards, int from, int to, DateConverter dateConverter) {
+            this.cards = cards;
+            this.from = from;
+            this.to = to;
+            this.dateConverter = dateConverter;
+        }
+
+        @Override
+        protected CardAggregator compute() {
+            if (to - from <= CHUNK_SIZE) {
+                CardAggregator aggregator = new CardAggregator(dateConverter);
+                for (int i = from; i < to; i++) {
+                    aggregator.add(cards.get(i));
+                }
+                return aggregator;
+            }
+
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(cards, from, middle, dateConverter);
+            left.fork();
+            CardAggregator right = new AggregateTask(cards, middle, to, dateConverter).compute();
+            CardAggregator merged = left.join();
+            merged.merge(right);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the grouped result of each Mode 2 input file on disk between runs.
+ * A partial holds the file's accounts and products with their balance sums and already converted
+ * card details, tagged with the size and modification time of the file it came from. A later run
+ * reuses the partial of every unchanged file and only parses files that are new or have changed.
+ * Safe to share between threads as long as each input file is handled by one thread at a time.
+ */
+class PartialStore {
+    private static final int FORMAT_VERSION = 1;
+    private static final String PARTIAL_SUFFIX = ".partial";
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    private final Path directory;
+    private final DateConverter dateConverter;
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder stored = new LongAdder();
+
+    public PartialStore(Path directory, DateConverter dateConverter) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.dateConverter = dateConverter;
+    }
+
+    /**
+     * @return The stored partial of the input file, or null if there is none for its current content.
+     */
+    public CardAggregator load(File inputFile) {
+        Path partialPath = partialPath(inputFile);
+        if (!Files.exists(partialPath)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(partialPath), STREAM_BUFFER_BYTES))) {
+            if (in.readInt() != FORMAT_VERSION || in.readLong() != inputFile.length()
+                    || in.readLong() != inputFile.lastModified()) {
+                return null;
+            }
+            CardAggregator partial = CardAggregator.readFrom(in, dateConverter);
+            reused.increment();
+            return partial;
+        } catch (IOException e) {
+            System.err.println("⚠️ Ignoring unreadable partial for " + inputFile.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the partial of an input file, replacing any older one.
+     * The partial is written to a temporary file first, so a crash never leaves a truncated partial behind.
+     */
+    public void save(File inputFile, CardAggregator partial) throws IOException {
+        Path partialPath = partialPath(inputFile);
+        Path tempPath = Files.createTempFile(directory, inputFile.getName(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(tempPath), STREAM_BUFFER_BYTES))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(inputFile.length());
+                out.writeLong(inputFile.lastModified());
+                partial.writeTo(out);
+            }
+            Files.move(tempPath, partialPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            stored.increment();
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Deletes the partials of input files that no longer exist.
+     */
+    public void retainOnly(List<File> inputFiles) throws IOException {
+        Set<Path> current = new HashSet<>();
+        for (File inputFile : inputFiles) {
+            current.add(partialPath(inputFile));
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(PARTIAL_SUFFIX) && !current.contains(file)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    public long reusedCount() {
+        return reused.sum();
+    }
+
+    public long storedCount() {
+        return stored.sum();
+    }
+
+    private Path partialPath(File inputFile) {
+        return directory.resolve(inputFile.getName() + PARTIAL_SUFFIX);
+    }
+}
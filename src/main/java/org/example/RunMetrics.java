@@ -0,0 +1,357 @@
+package org.example;
+
+import org.example.model.AppConfig;
+import org.example.model.RunReport;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Counters and timings of one processing run. They can be read over JMX while the run is going
+ * and are turned into a {@link RunReport} once it has finished.
+ * Work on a file is timed through its {@link FileMetrics}, which is added to the run totals when the file is done.
+ */
+class RunMetrics implements RunMetricsMBean {
+    enum Phase { READ, PARSE, TRANSFORM, SERIALIZE, WRITE }
+
+    @FunctionalInterface
+    interface TimedWork<T> {
+        T run() throws IOException;
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final int mode;
+    private final int threads;
+    private final DateConverter dateConverter;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final long dateParseFailuresAtStart;
+    private final long dateCacheHitsAtStart;
+    private final long gcCountAtStart;
+    private final long gcMillisAtStart;
+    private volatile long endNanos;
+    private volatile long dateParseFailures;
+    private volatile long dateCacheHits;
+    private volatile long gcCount;
+    private volatile long gcMillis;
+
+    private final LongAdder filesProcessed = new LongAdder();
+    private final LongAdder cardsProcessed = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private volatile IntSupplier queueDepth = () -> 0;
+    private final Queue<RunReport.FileReport> fileReports = new ConcurrentLinkedQueue<>();
+
+    public RunMetrics(AppConfig config, DateConverter dateConverter) {
+        this.mode = config.mode();
+        this.threads = config.threads();
+        this.dateConverter = dateConverter;
+        this.dateParseFailuresAtStart = dateConverter.parseFailures();
+        this.dateCacheHitsAtStart = dateConverter.cacheHits();
+        this.gcCountAtStart = totalGcCount();
+        this.gcMillisAtStart = totalGcMillis();
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Makes this run the one shown over JMX, replacing the previous run.
+     */
+    public void publish() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("org.example:type=RunMetrics");
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            System.err.println("⚠️ Could not register run metrics with JMX: " + e.getMessage());
+        }
+    }
+
+    public FileMetrics startFile(File inputFile) {
+        return new FileMetrics(inputFile.getName(), inputFile.length());
+    }
+
+    /**
+     * Starts the metrics of a Mode 2 output, which has no input file of its own.
+     */
+    public FileMetrics startOutput() {
+        return new FileMetrics(null, 0);
+    }
+
+    /**
+     * Adds a file's figures to the run totals once all work on it is done.
+     */
+    public void finishFile(FileMetrics file) {
+        if (file.input != null) {
+            filesProcessed.increment();
+        }
+        cardsProcessed.add(file.cards);
+        bytesRead.add(file.bytesRead);
+        bytesWritten.add(file.bytesWritten);
+        allocatedBytes.add(file.allocatedBytes);
+        for (Phase phase : Phase.values()) {
+            phaseNanos[phase.ordinal()].add(file.phaseNanos[phase.ordinal()]);
+        }
+        peakQueueDepth.accumulateAndGet(getQueueDepth(), Math::max);
+        fileReports.add(new RunReport.FileReport(file.input, file.output, file.bytesRead, file.bytesWritten,
+                file.cards, byPhase(file.phaseNanos), file.allocatedBytes));
+    }
+
+    /**
+     * Sets where the queue depth of the running mode's executor or pipeline is read from.
+     */
+    public void watchQueue(IntSupplier queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public void finish() {
+        peakQueueDepth.accumulateAndGet(getQueueDepth(), Math::max);
+        queueDepth = () -> 0;
+        dateParseFailures = dateConverter.parseFailures() - dateParseFailuresAtStart;
+        dateCacheHits = dateConverter.cacheHits() - dateCacheHitsAtStart;
+        gcCount = totalGcCount() - gcCountAtStart;
+        gcMillis = totalGcMillis() - gcMillisAtStart;
+        endNanos = System.nanoTime();
+    }
+
+    public RunReport toReport() {
+        long[] totals = new long[phaseNanos.length];
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] = phaseNanos[i].sum();
+        }
+        return new RunReport(mode, threads, startedAt.toString(), elapsedNanos(), getFilesProcessed(),
+                getCardsProcessed(), getCardsPerSecond(), getBytesRead(), getBytesWritten(), byPhase(totals),
+                getAllocatedBytes(), getPeakQueueDepth(), getDateParseFailures(), getGcCount(), getGcMillis(),
+                new ArrayList<>(fileReports));
+    }
+
+    @Override
+    public int getMode() {
+        return mode;
+    }
+
+    @Override
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return endNanos == 0;
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos());
+    }
+
+    @Override
+    public long getFilesProcessed() {
+        return filesProcessed.sum();
+    }
+
+    @Override
+    public long getCardsProcessed() {
+        return cardsProcessed.sum();
+    }
+
+    @Override
+    public double getCardsPerSecond() {
+        long elapsedNanos = elapsedNanos();
+        return elapsedNanos == 0 ? 0 : getCardsProcessed() * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getReadMillis() {
+        return phaseMillis(Phase.READ);
+    }
+
+    @Override
+    public long getParseMillis() {
+        return phaseMillis(Phase.PARSE);
+    }
+
+    @Override
+    public long getTransformMillis() {
+        return phaseMillis(Phase.TRANSFORM);
+    }
+
+    @Override
+    public long getSerializeMillis() {
+        return phaseMillis(Phase.SERIALIZE);
+    }
+
+    @Override
+    public long getWriteMillis() {
+        return phaseMillis(Phase.WRITE);
+    }
+
+    @Override
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public int getPeakQueueDepth() {
+        return peakQueueDepth.get();
+    }
+
+    @Override
+    public long getDateParseFailures() {
+        return isRunning() ? dateConverter.parseFailures() - dateParseFailuresAtStart : dateParseFailures;
+    }
+
+    @Override
+    public long getDateCacheHits() {
+        return isRunning() ? dateConverter.cacheHits() - dateCacheHitsAtStart : dateCacheHits;
+    }
+
+    @Override
+    public long getGcCount() {
+        return isRunning() ? totalGcCount() - gcCountAtStart : gcCount;
+    }
+
+    @Override
+    public long getGcMillis() {
+        return isRunning() ? totalGcMillis() - gcMillisAtStart : gcMillis;
+    }
+
+    private long elapsedNanos() {
+        return (isRunning() ? System.nanoTime() : endNanos) - startNanos;
+    }
+
+    private long phaseMillis(Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(phaseNanos[phase.ordinal()].sum());
+    }
+
+    private static Map<String, Long> byPhase(long[] nanos) {
+        Map<String, Long> byPhase = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            byPhase.put(phase.name().toLowerCase(Locale.ROOT), nanos[phase.ordinal()]);
+        }
+        return byPhase;
+    }
+
+    private static long totalGcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long totalGcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Heap allocated so far by the current thread, or -1 where the JVM does not track it (for example on virtual threads).
+     */
+    static long threadAllocatedBytes() {
+        return THREADS instanceof com.sun.management.ThreadMXBean threadBean && threadBean.isThreadAllocatedMemoryEnabled()
+                ? threadBean.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    /**
+     * The figures of one input file, or of one Mode 2 output. Work on a file may move between threads,
+     * but only one thread works on it at a time.
+     */
+    static class FileMetrics {
+        private final String input;
+        private final long bytesRead;
+        private final long[] phaseNanos = new long[Phase.values().length];
+        private String output;
+        private long bytesWritten;
+        private long cards;
+        private long allocatedBytes;
+
+        private FileMetrics(String input, long bytesRead) {
+            this.input = input;
+            this.bytesRead = bytesRead;
+        }
+
+        /**
+         * Runs work on the current thread and adds its time and allocation to the given phase.
+         */
+        public <T> T time(Phase phase, TimedWork<T> work) throws IOException {
+            long startAllocated = threadAllocatedBytes();
+            long start = System.nanoTime();
+            try {
+                return work.run();
+            } finally {
+                add(phase, System.nanoTime() - start);
+                addAllocatedBytes(startAllocated, threadAllocatedBytes());
+            }
+        }
+
+        public void add(Phase phase, long nanos) {
+            phaseNanos[phase.ordinal()] += nanos;
+        }
+
+        /**
+         * Adds the allocation between two readings of {@link #threadAllocatedBytes()} on the same thread.
+         */
+        public void addAllocatedBytes(long startAllocated, long endAllocated) {
+            if (startAllocated >= 0 && endAllocated >= startAllocated) {
+                allocatedBytes += endAllocated - startAllocated;
+            }
+        }
+
+        public void addBytesWritten(long bytes) {
+            bytesWritten += bytes;
+        }
+
+        public void addCards(long cards) {
+            this.cards += cards;
+        }
+
+        public void setOutput(String output) {
+            this.output = output;
+        }
+    }
+}
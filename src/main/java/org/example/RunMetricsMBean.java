@@ -0,0 +1,49 @@
+package org.example;
+
+/**
+ * The JMX view of the current or most recent processing run, registered as {@code org.example:type=RunMetrics}.
+ * Phase times are summed over all worker threads.
+ */
+public interface RunMetricsMBean {
+    int getMode();
+
+    int getThreads();
+
+    boolean isRunning();
+
+    long getElapsedMillis();
+
+    long getFilesProcessed();
+
+    long getCardsProcessed();
+
+    double getCardsPerSecond();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    long getReadMillis();
+
+    long getParseMillis();
+
+    long getTransformMillis();
+
+    long getSerializeMillis();
+
+    long getWriteMillis();
+
+    long getAllocatedBytes();
+
+    int getQueueDepth();
+
+    int getPeakQueueDepth();
+
+    long getDateParseFailures();
+
+    long getDateCacheHits();
+
+    long getGcCount();
+
+    long getGcMillis();
+}
@@ -0,0 +1,171 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.Account;
+import org.example.model.ShardManifest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes an aggregated result as one output file per account range, each on its own thread,
+ * followed by a manifest listing the shards with their account ranges and totals.
+ * Every shard is a complete output document, so consumers can read the shards in parallel.
+ */
+class ShardedOutputWriter {
+    private static final int HANDOFF_QUEUE_CAPACITY = 256;
+    private static final long HANDOFF_POLL_MILLIS = 100;
+
+    private final JsonOutputWriter outputWriter;
+    private final ObjectMapper manifestMapper;
+    private final RunMetrics runMetrics;
+    private final OutputFiles outputFiles;
+
+    public ShardedOutputWriter(JsonOutputWriter outputWriter, ObjectMapper manifestMapper, RunMetrics runMetrics,
+                               OutputFiles outputFiles) {
+        this.outputWriter = outputWriter;
+        this.manifestMapper = manifestMapper;
+        this.runMetrics = runMetrics;
+        this.outputFiles = outputFiles;
+    }
+
+    /**
+     * Writes {@code <baseName>_shard-<n>-of-<count><extension>} for every range, then {@code <baseName>.manifest.json}.
+     * @param independent Whether the ranges can be consumed concurrently. If not, they are read in order on the
+     *                    calling thread and handed to the shard writers, which still serialize in parallel.
+     * @return The path of the manifest.
+     */
+    public Path write(Path outputDir, String baseName, String extension, List<AccountRange> ranges,
+                      boolean independent) throws IOException, InterruptedException {
+        ExecutorService writers = Executors.newFixedThreadPool(ranges.size());
+        try {
+            List<Future<ShardManifest.Shard>> shards = new ArrayList<>(ranges.size());
+            List<BlockingQueue<Optional<Account>>> handoffs = new ArrayList<>(ranges.size());
+            for (int i = 0; i < ranges.size(); i++) {
+                AccountRange range = ranges.get(i);
+                String fileName = String.format("%s_shard-%03d-of-%03d%s", baseName, i + 1, ranges.size(), extension);
+                Iterator<Account> accounts = range.accounts();
+                if (!independent) {
+                    BlockingQueue<Optional<Account>> handoff = new ArrayBlockingQueue<>(HANDOFF_QUEUE_CAPACITY);
+                    handoffs.add(handoff);
+                    accounts = new HandoffIterator(handoff);
+                }
+                Iterator<Account> shardAccounts = accounts;
+                shards.add(writers.submit(() -> writeShard(outputDir.resolve(fileName), range.accountTotal(), shardAccounts)));
+            }
+            if (!independent) {
+                feed(ranges, handoffs, shards);
+            }
+
+            int accountTotal = 0;
+            List<ShardManifest.Shard> written = new ArrayList<>(shards.size());
+            for (Future<ShardManifest.Shard> shard : shards) {
+                written.add(shard.get());
+                accountTotal += written.getLast().accountTotal();
+            }
+            Path manifestPath = outputDir.resolve(baseName + ".manifest.json");
+            ShardManifest manifest = new ShardManifest(accountTotal, written);
+            outputFiles.write(manifestPath, out -> manifestMapper.writeValue(out, manifest));
+            return manifestPath;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Failed to write shard", e.getCause());
+        } finally {
+            writers.shutdownNow();
+        }
+    }
+
+    private ShardManifest.Shard writeShard(Path shardPath, int accountTotal, Iterator<Account> accounts) throws IOException {
+        String[] bounds = new String[2];
+        RunMetrics.FileMetrics metrics = runMetrics.startOutput();
+        outputWriter.write(shardPath, accountTotal, new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return accounts.hasNext();
+            }
+
+            @Override
+            public Account next() {
+                Account account = accounts.next();
+                if (bounds[0] == null) {
+                    bounds[0] = account.getAccountNumber();
+                }
+                bounds[1] = account.getAccountNumber();
+                return account;
+            }
+        }, metrics);
+        runMetrics.finishFile(metrics);
+        return new ShardManifest.Shard(shardPath.getFileName().toString(), accountTotal, bounds[0], bounds[1]);
+    }
+
+    /**
+     * Reads the ranges in order and hands each account to its shard's writer, ending every range with an empty marker.
+     * Stops early with the writer's exception if a shard fails, instead of blocking on its full queue.
+     */
+    private static void feed(List<AccountRange> ranges, List<BlockingQueue<Optional<Account>>> handoffs,
+                             List<Future<ShardManifest.Shard>> shards) throws InterruptedException, ExecutionException {
+        for (int i = 0; i < ranges.size(); i++) {
+            Iterator<Account> accounts = ranges.get(i).accounts();
+            while (accounts.hasNext()) {
+                handOff(handoffs.get(i), Optional.of(accounts.next()), shards.get(i));
+            }
+            handOff(handoffs.get(i), Optional.empty(), shards.get(i));
+        }
+    }
+
+    private static void handOff(BlockingQueue<Optional<Account>> handoff, Optional<Account> item,
+                                Future<ShardManifest.Shard> shard) throws InterruptedException, ExecutionException {
+        while (!handoff.offer(item, HANDOFF_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (shard.isDone()) {
+                shard.get();
+                throw new IllegalStateException("Shard writer stopped before its accounts were handed over");
+            }
+        }
+    }
+
+    /**
+     * The accounts of one shard as they arrive from the feeding thread.
+     */
+    private static class HandoffIterator implements Iterator<Account> {
+        private final BlockingQueue<Optional<Account>> handoff;
+        private Optional<Account> next;
+
+        HandoffIterator(BlockingQueue<Optional<Account>> handoff) {
+            this.handoff = handoff;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = handoff.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for accounts", e);
+                }
+            }
+            return next.isPresent();
+        }
+
+        @Override
+        public Account next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Account account = next.get();
+            next = null;
+            return account;
+        }
+    }
+}
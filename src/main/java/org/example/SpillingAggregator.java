@@ -0,0 +1,408 @@
+package org.example;
+
+import org.example.model.Account;
+import org.example.model.Card;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Disk-backed aggregation for Mode 2.
+ * Cards are grouped in memory until the estimated size passes the memory budget. The grouped data is then
+ * spilled to partition files chosen by account number hash, and grouping starts over with an empty heap.
+ * When the output is requested, each partition is merged back on its own, written as a run of sorted
+ * accounts, and the runs are merge-sorted into the final account order. A partition that outgrows the budget
+ * while it is merged back is split again by another hash of the account number, so the input can be many times
+ * larger than the budget. The result is identical to grouping everything in memory.
+ */
+class SpillingAggregator implements Closeable {
+    private static final int PARTITION_COUNT = 32;
+    // A partition is split at most this many times; beyond that it is merged in memory whatever its size
+    private static final int MAX_PARTITION_DEPTH = 4;
+    private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+    private final long memoryBudgetBytes;
+    private final DateConverter dateConverter;
+    private CardAggregator inMemory;
+
+    private Path spillDir;
+    private PartitionFiles partitions;
+    private int partitionFileCount;
+    private List<Path> runs;
+    private RunMerger runMerger;
+    private int spilledAccountCount;
+
+    /**
+     * @param memoryBudgetBytes The estimated heap the in-memory groups may use before spilling.
+     */
+    public SpillingAggregator(long memoryBudgetBytes, DateConverter dateConverter) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.dateConverter = dateConverter;
+        this.inMemory = new CardAggregator(dateConverter);
+    }
+
+    /**
+     * Adds a card, spilling to disk when the memory budget is exceeded.
+     * @throws UncheckedIOException If the spill files cannot be written.
+     */
+    public void add(Card card) {
+        inMemory.add(card);
+        spillIfOverBudget();
+    }
+
+    private void spillIfOverBudget() {
+        if (inMemory.estimatedBytes() > memoryBudgetBytes) {
+            try {
+                spill();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to spill aggregation data to disk", e);
+            }
+        }
+    }
+
+    /**
+     * Merges a partial aggregate, as if its cards had been added one by one.
+     * @throws UncheckedIOException If the spill files cannot be written.
+     */
+    public void addAll(CardAggregator partial) {
+        inMemory.merge(partial);
+        spillIfOverBudget();
+    }
+
+    public boolean isEmpty() {
+        return !hasSpilled() && inMemory.isEmpty();
+    }
+
+    public boolean hasSpilled() {
+        return spillDir != null;
+    }
+
+    public int accountCount() throws IOException {
+        if (!hasSpilled()) {
+            return inMemory.accountCount();
+        }
+        buildRuns();
+        return spilledAccountCount;
+    }
+
+    /**
+     * Returns the accounts in account number order. Call once all cards have been added.
+     */
+    public Iterator<Account> accounts() throws IOException {
+        if (!hasSpilled()) {
+            return inMemory.accounts();
+        }
+        buildRuns();
+        runMerger = new RunMerger(runs);
+        return runMerger;
+    }
+
+    /**
+     * Splits the accounts, in account number order, into contiguous ranges of nearly equal size.
+     * Before anything is spilled each range finalizes its own accounts and the ranges can be consumed
+     * concurrently. Once spilled, the ranges are consecutive views of one merge of the run files and
+     * must be consumed in order, see {@link #rangesAreIndependent()}. Call once all cards have been added.
+     */
+    public List<AccountRange> accountRanges(int rangeCount) throws IOException {
+        if (!hasSpilled()) {
+            return inMemory.accountRanges(rangeCount);
+        }
+        buildRuns();
+        runMerger = new RunMerger(runs);
+        int ranges = Math.max(1, Math.min(rangeCount, spilledAccountCount));
+        List<AccountRange> accountRanges = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            int accountTotal = (int) ((long) spilledAccountCount * (i + 1) / ranges - (long) spilledAccountCount * i / ranges);
+            accountRanges.add(new AccountRange(accountTotal, limit(runMerger, accountTotal)));
+        }
+        return accountRanges;
+    }
+
+    public boolean rangesAreIndependent() {
+        return !hasSpilled();
+    }
+
+    private static Iterator<Account> limit(Iterator<Account> accounts, int count) {
+        return new Iterator<>() {
+            private int remaining = count;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0 && accounts.hasNext();
+            }
+
+            @Override
+            public Account next() {
+                if (remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                remaining--;
+                return accounts.next();
+            }
+        };
+    }
+
+    private void spill() throws IOException {
+        if (spillDir == null) {
+            spillDir = Files.createTempDirectory("rearrange-spill");
+            partitions = openPartitions(0);
+            System.out.println("   -> Memory budget exceeded, spilling aggregation data to " + spillDir);
+        }
+        inMemory.spill(partitions::outputFor);
+    }
+
+    /**
+     * Opens a new set of partition files. Either all of them are open, or none is.
+     */
+    private PartitionFiles openPartitions(int depth) throws IOException {
+        Path[] paths = new Path[PARTITION_COUNT];
+        DataOutputStream[] streams = new DataOutputStream[PARTITION_COUNT];
+        try {
+            for (int i = 0; i < PARTITION_COUNT; i++) {
+                paths[i] = spillDir.resolve("partition-" + partitionFileCount++ + ".bin");
+                streams[i] = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(paths[i]), STREAM_BUFFER_BYTES));
+            }
+        } catch (IOException e) {
+            for (DataOutputStream stream : streams) {
+                if (stream != null) {
+                    try {
+                        stream.close();
+                    } catch (IOException closeFailure) {
+                        e.addSuppressed(closeFailure);
+                    }
+                }
+            }
+            throw e;
+        }
+        return new PartitionFiles(depth, paths, streams);
+    }
+
+    /**
+     * Merges each partition back in memory and writes its accounts, already finalized and sorted, to a run file.
+     * All accounts of one account number live in the same partition, so partitions can be merged independently.
+     */
+    private void buildRuns() throws IOException {
+        if (runs != null) {
+            return;
+        }
+        if (!inMemory.isEmpty()) {
+            spill();
+        }
+        partitions.close();
+        inMemory = null;
+
+        runs = new ArrayList<>(PARTITION_COUNT);
+        buildRuns(partitions);
+    }
+
+    private void buildRuns(PartitionFiles partitionFiles) throws IOException {
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            buildRun(partitionFiles.paths[i], partitionFiles.recordCounts[i], partitionFiles.depth);
+        }
+    }
+
+    /**
+     * Merges one partition and writes it as a run. If the merged partition passes the memory budget, what has been
+     * merged so far and the rest of its records are split over sub-partitions instead, which are merged one by one.
+     * Each account's records keep their order, so the totals come out as if nothing had been split.
+     */
+    private void buildRun(Path partitionPath, long recordCount, int depth) throws IOException {
+        CardAggregator partition = new CardAggregator(dateConverter);
+        PartitionFiles subPartitions = null;
+        try (DataInputStream in = openStream(partitionPath)) {
+            for (long record = 0; record < recordCount; record++) {
+                partition.mergeSpilled(in);
+                if (subPartitions == null && partition.estimatedBytes() > memoryBudgetBytes
+                        && depth < MAX_PARTITION_DEPTH && partition.accountCount() > 1) {
+                    subPartitions = openPartitions(depth + 1);
+                }
+                if (subPartitions != null) {
+                    partition.spill(subPartitions::outputFor);
+                }
+            }
+        } finally {
+            if (subPartitions != null) {
+                subPartitions.close();
+            }
+        }
+        Files.delete(partitionPath);
+
+        if (subPartitions != null) {
+            buildRuns(subPartitions);
+            return;
+        }
+        if (partition.isEmpty()) {
+            return;
+        }
+        Path runPath = spillDir.resolve("run-" + runs.size() + ".bin");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(runPath), STREAM_BUFFER_BYTES))) {
+            out.writeInt(partition.accountCount());
+            for (Iterator<Account> accounts = partition.accounts(); accounts.hasNext(); ) {
+                AccountCodec.writeAccount(out, accounts.next());
+            }
+        }
+        spilledAccountCount += partition.accountCount();
+        runs.add(runPath);
+    }
+
+    private static DataInputStream openStream(Path path) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(path), STREAM_BUFFER_BYTES));
+    }
+
+    /**
+     * Deletes the spill directory and everything in it.
+     */
+    @Override
+    public void close() throws IOException {
+        if (runMerger != null) {
+            runMerger.close();
+        }
+        if (partitions != null) {
+            partitions.close();
+        }
+        if (spillDir != null && Files.exists(spillDir)) {
+            try (Stream<Path> files = Files.list(spillDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(spillDir);
+        }
+    }
+
+    /**
+     * One set of partition files being written, and how many account records each has received.
+     */
+    private static class PartitionFiles implements Closeable {
+        private final int depth;
+        private final Path[] paths;
+        private final DataOutputStream[] streams;
+        private final long[] recordCounts = new long[PARTITION_COUNT];
+
+        PartitionFiles(int depth, Path[] paths, DataOutputStream[] streams) {
+            this.depth = depth;
+            this.paths = paths;
+            this.streams = streams;
+        }
+
+        DataOutput outputFor(String accountNumber) {
+            int partition = partitionOf(accountNumber, depth);
+            recordCounts[partition]++;
+            return streams[partition];
+        }
+
+        /**
+         * Picks the partition of an account number with a different hash at each depth, so that the accounts of a
+         * partition that is split again spread over all of its sub-partitions.
+         */
+        private static int partitionOf(String accountNumber, int depth) {
+            int hash = accountNumber.hashCode();
+            if (depth > 0) {
+                // The finalizer of MurmurHash3 over the hash salted with the depth
+                hash += depth * 0x9E3779B9;
+                hash ^= hash >>> 16;
+                hash *= 0x85ebca6b;
+                hash ^= hash >>> 13;
+                hash *= 0xc2b2ae35;
+                hash ^= hash >>> 16;
+            }
+            return Math.floorMod(hash, PARTITION_COUNT);
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (DataOutputStream stream : streams) {
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * K-way merge of the sorted run files by account number.
+     */
+    private static class RunMerger implements Iterator<Account>, Closeable {
+        private final PriorityQueue<RunCursor> cursors =
+                new PriorityQueue<>(Comparator.comparing((RunCursor cursor) -> cursor.head.getAccountNumber()));
+
+        RunMerger(List<Path> runs) throws IOException {
+            for (Path run : runs) {
+                RunCursor cursor = new RunCursor(openStream(run));
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !cursors.isEmpty();
+        }
+
+        @Override
+        public Account next() {
+            RunCursor cursor = cursors.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            Account account = cursor.head;
+            try {
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read spilled accounts", e);
+            }
+            return account;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RunCursor cursor : cursors) {
+                cursor.in.close();
+            }
+            cursors.clear();
+        }
+    }
+
+    private static class RunCursor {
+        private final DataInputStream in;
+        private int remaining;
+        private Account head;
+
+        RunCursor(DataInputStream in) throws IOException {
+            this.in = in;
+            this.remaining = in.readInt();
+        }
+
+        /**
+         * Moves to the next account of the run, closing the file once it is exhausted.
+         */
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                in.close();
+                head = null;
+                return false;
+            }
+            remaining--;
+            head = AccountCodec.readAccount(in);
+            return true;
+        }
+    }
+}
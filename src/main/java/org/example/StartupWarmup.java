@@ -0,0 +1,88 @@
+package org.example;
+
+import org.example.model.AppConfig;
+import org.example.model.Card;
+import org.example.model.InputFile;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Gets the one-off costs of a JVM start out of the way before real input arrives: class loading,
+ * Jackson's introspection of the model classes and the first JIT compilations of the hot paths.
+ * Main runs the in-memory warm-up in the background while it waits for the trigger file, and
+ * {@code --warmup} adds complete runs over temporary directories as the training run for an AppCDS archive.
+ */
+final class StartupWarmup {
+    private static final int SAMPLE_CARDS = 500;
+    private static final int SAMPLE_ACCOUNTS = 40;
+    private static final String SAMPLE_CONFIG = "<Configuration><Thread>1</Thread><Mode>1</Mode></Configuration>";
+
+    private StartupWarmup() {
+    }
+
+    /**
+     * Parses a sample configuration and runs generated cards through parsing, grouping and serialization in memory.
+     */
+    static void run() {
+        try {
+            ConfigParser.readValues(new ByteArrayInputStream(SAMPLE_CONFIG.getBytes(StandardCharsets.UTF_8)));
+            byte[] input = JsonMappers.JSON.writeValueAsBytes(sampleInput());
+            CardAggregator aggregator = new CardAggregator(new DateConverter());
+            new CardStreamReader(JsonMappers.JSON, 0).read(input, aggregator::add);
+            new JsonOutputWriter(JsonMappers.JSON, true)
+                    .write(OutputStream.nullOutputStream(), aggregator.accountCount(), aggregator.accounts());
+        } catch (IOException | XMLStreamException e) {
+            // Warming up is only an optimization; a real problem shows up again in the real run
+        }
+    }
+
+    /**
+     * Processes a generated input file in every mode over temporary directories, which are deleted afterwards.
+     */
+    static void trainingRun() throws IOException {
+        Path workDir = Files.createTempDirectory("rearrange-warmup");
+        try {
+            Path inputDir = Files.createDirectories(workDir.resolve("Input"));
+            JsonMappers.JSON.writeValue(inputDir.resolve("sample.json").toFile(), sampleInput());
+            for (int mode = 1; mode <= 4; mode++) {
+                Path outputDir = Files.createDirectories(workDir.resolve("Output-" + mode));
+                // With the run report, so the archive also covers runs that turn it on
+                AppConfig config = AppConfig.builder(2, mode).runReport(true).build();
+                new DataProcessor(config, inputDir.toString(), outputDir.toString()).processFiles();
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(workDir)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private static InputFile sampleInput() {
+        List<Card> cards = new ArrayList<>(SAMPLE_CARDS);
+        for (int i = 0; i < SAMPLE_CARDS; i++) {
+            Card card = new Card();
+            card.setAccountNumber(String.valueOf(1_000_000_000_000L + i % SAMPLE_ACCOUNTS));
+            card.setProductName(i % 3 == 0 ? "debit-card" : "credit-card");
+            card.setCardNumber(String.valueOf(4_000_000_000_000_000L + i));
+            card.setBalance(i + "." + (i % 100 < 10 ? "0" : "") + i % 100);
+            card.setExpireDate(String.format("01%02d25%02d", 1 + i % 12, 60 + i % 15));
+            cards.add(card);
+        }
+        InputFile inputFile = new InputFile();
+        inputFile.setCardTotal(cards.size());
+        inputFile.setCards(cards);
+        return inputFile;
+    }
+}
@@ -1,12 +1,16 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 
 public class Account {
     private String accountNumber;
     private List<Product> products;
 
-    public Account(String accountNumber, List<Product> products) {
+    @JsonCreator
+    public Account(@JsonProperty("accountNumber") String accountNumber, @JsonProperty("products") List<Product> products) {
         this.accountNumber = accountNumber;
         this.products = products;
     }
@@ -2,5 +2,214 @@ package org.example.model;
 
 /**
  * A simple record to hold configuration values.
+ * Only threads and mode are required; the remaining settings have defaults. Build configurations with
+ * {@link #builder(int, int)} and set only what differs from the defaults, rather than listing every component.
+ * @param prettyPrint Whether output JSON is indented. Bulk runs can turn it off for smaller, faster output.
+ * @param memoryBudgetBytes How much grouped data Mode 2 keeps on the heap before spilling to disk.
+ *                          0 means a quarter of the maximum heap size.
+ * @param maxOpenFiles How many files Mode 3 holds at the same time, from reading each one until its output is written.
+ * @param readerThreads Workers of the Mode 4 read stage. The transform stage uses threads.
+ * @param writerThreads Workers of the Mode 4 write stage.
+ * @param queueCapacity How many files may wait between two Mode 4 stages.
+ * @param mmapThresholdBytes Input files of at least this size are memory-mapped when streamed. 0 disables mapping.
+ * @param partialStoreDir Where Mode 2 keeps the grouped result of each input file between runs, so unchanged
+ *                        files are not parsed again. Empty disables the store.
+ * @param batchMaxFiles In daemon mode, the most arrived files processed together as one batch.
+ * @param batchWindowMs In daemon mode, how long the first file of a batch waits for more files to join it.
+ * @param writeQuietMs In daemon mode, how long a file's size and modification time must stay unchanged
+ *                     before it counts as completely written.
+ * @param outputFormat The encoding output files are written in.
+ * @param columnarBatches Whether Modes 1, 3 and 4 and single-threaded transforms hold each file's cards
+ *                        in primitive columns instead of Card objects, which allocates far less for large files.
+ * @param shards How many files Mode 2 splits its result into by account range, written concurrently
+ *               and listed in a manifest. 1 writes a single file.
+ * @param runReport Whether each run writes its timings and counters as a JSON report next to its output files.
+ *                  Off by default, so that the output folder only holds output files.
+ * @param outputBuffers How many direct buffers output writers share. 0 means one per worker thread.
+ * @param outputBufferBytes The size of each output buffer.
+ * @param fsyncOutput Whether each output file is forced to disk before it is renamed to its final name.
+ * @param outputCompression How output files are compressed.
+ * @param dedup Whether Mode 2 counts a card number only once across its input files, and which occurrence wins.
+ * @param outputIndex Whether each JSON output file gets an index of its accounts' byte ranges next to it,
+ *                    for reading single accounts with AccountLookup.
  */
-public record AppConfig(int threads, int mode) {}
+public record AppConfig(int threads, int mode, boolean prettyPrint, long memoryBudgetBytes, int maxOpenFiles,
+                        int readerThreads, int writerThreads, int queueCapacity, long mmapThresholdBytes,
+                        String partialStoreDir, int batchMaxFiles, long batchWindowMs, long writeQuietMs,
+                        OutputFormat outputFormat, boolean columnarBatches, int shards,
+                        boolean runReport, int outputBuffers, int outputBufferBytes, boolean fsyncOutput,
+                        Compression outputCompression, CardDedup dedup, boolean outputIndex) {
+    public static final int DEFAULT_MAX_OPEN_FILES = 64;
+    public static final int DEFAULT_READER_THREADS = 2;
+    public static final int DEFAULT_WRITER_THREADS = 2;
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+    public static final long DEFAULT_MMAP_THRESHOLD_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_BATCH_MAX_FILES = 32;
+    public static final long DEFAULT_BATCH_WINDOW_MS = 200;
+    public static final long DEFAULT_WRITE_QUIET_MS = 100;
+    public static final int DEFAULT_SHARDS = 1;
+    public static final int DEFAULT_OUTPUT_BUFFER_BYTES = 256 * 1024;
+
+    public AppConfig(int threads, int mode) {
+        this(builder(threads, mode));
+    }
+
+    private AppConfig(Builder builder) {
+        this(builder.threads, builder.mode, builder.prettyPrint, builder.memoryBudgetBytes, builder.maxOpenFiles,
+                builder.readerThreads, builder.writerThreads, builder.queueCapacity, builder.mmapThresholdBytes,
+                builder.partialStoreDir, builder.batchMaxFiles, builder.batchWindowMs, builder.writeQuietMs,
+                builder.outputFormat, builder.columnarBatches, builder.shards, builder.runReport,
+                builder.outputBuffers, builder.outputBufferBytes, builder.fsyncOutput, builder.outputCompression,
+                builder.dedup, builder.outputIndex);
+    }
+
+    /**
+     * Starts a configuration with the two required settings and every other setting at its default.
+     */
+    public static Builder builder(int threads, int mode) {
+        return new Builder(threads, mode);
+    }
+
+    /**
+     * Sets settings by name, so that only the ones that differ from their defaults need to be given.
+     */
+    public static final class Builder {
+        private final int threads;
+        private final int mode;
+        private boolean prettyPrint = true;
+        private long memoryBudgetBytes = 0;
+        private int maxOpenFiles = DEFAULT_MAX_OPEN_FILES;
+        private int readerThreads = DEFAULT_READER_THREADS;
+        private int writerThreads = DEFAULT_WRITER_THREADS;
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private long mmapThresholdBytes = DEFAULT_MMAP_THRESHOLD_BYTES;
+        private String partialStoreDir = "";
+        private int batchMaxFiles = DEFAULT_BATCH_MAX_FILES;
+        private long batchWindowMs = DEFAULT_BATCH_WINDOW_MS;
+        private long writeQuietMs = DEFAULT_WRITE_QUIET_MS;
+        private OutputFormat outputFormat = OutputFormat.JSON;
+        private boolean columnarBatches = false;
+        private int shards = DEFAULT_SHARDS;
+        private boolean runReport = false;
+        private int outputBuffers = 0;
+        private int outputBufferBytes = DEFAULT_OUTPUT_BUFFER_BYTES;
+        private boolean fsyncOutput = false;
+        private Compression outputCompression = Compression.NONE;
+        private CardDedup dedup = CardDedup.NONE;
+        private boolean outputIndex = false;
+
+        private Builder(int threads, int mode) {
+            this.threads = threads;
+            this.mode = mode;
+        }
+
+        public Builder prettyPrint(boolean prettyPrint) {
+            this.prettyPrint = prettyPrint;
+            return this;
+        }
+
+        public Builder memoryBudgetBytes(long memoryBudgetBytes) {
+            this.memoryBudgetBytes = memoryBudgetBytes;
+            return this;
+        }
+
+        public Builder maxOpenFiles(int maxOpenFiles) {
+            this.maxOpenFiles = maxOpenFiles;
+            return this;
+        }
+
+        public Builder readerThreads(int readerThreads) {
+            this.readerThreads = readerThreads;
+            return this;
+        }
+
+        public Builder writerThreads(int writerThreads) {
+            this.writerThreads = writerThreads;
+            return this;
+        }
+
+        public Builder queueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder mmapThresholdBytes(long mmapThresholdBytes) {
+            this.mmapThresholdBytes = mmapThresholdBytes;
+            return this;
+        }
+
+        public Builder partialStoreDir(String partialStoreDir) {
+            this.partialStoreDir = partialStoreDir;
+            return this;
+        }
+
+        public Builder batchMaxFiles(int batchMaxFiles) {
+            this.batchMaxFiles = batchMaxFiles;
+            return this;
+        }
+
+        public Builder batchWindowMs(long batchWindowMs) {
+            this.batchWindowMs = batchWindowMs;
+            return this;
+        }
+
+        public Builder writeQuietMs(long writeQuietMs) {
+            this.writeQuietMs = writeQuietMs;
+            return this;
+        }
+
+        public Builder outputFormat(OutputFormat outputFormat) {
+            this.outputFormat = outputFormat;
+            return this;
+        }
+
+        public Builder columnarBatches(boolean columnarBatches) {
+            this.columnarBatches = columnarBatches;
+            return this;
+        }
+
+        public Builder shards(int shards) {
+            this.shards = shards;
+            return this;
+        }
+
+        public Builder runReport(boolean runReport) {
+            this.runReport = runReport;
+            return this;
+        }
+
+        public Builder outputBuffers(int outputBuffers) {
+            this.outputBuffers = outputBuffers;
+            return this;
+        }
+
+        public Builder outputBufferBytes(int outputBufferBytes) {
+            this.outputBufferBytes = outputBufferBytes;
+            return this;
+        }
+
+        public Builder fsyncOutput(boolean fsyncOutput) {
+            this.fsyncOutput = fsyncOutput;
+            return this;
+        }
+
+        public Builder outputCompression(Compression outputCompression) {
+            this.outputCompression = outputCompression;
+            return this;
+        }
+
+        public Builder dedup(CardDedup dedup) {
+            this.dedup = dedup;
+            return this;
+        }
+
+        public Builder outputIndex(boolean outputIndex) {
+            this.outputIndex = outputIndex;
+            return this;
+        }
+
+        public AppConfig build() {
+            return new AppConfig(this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.model;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Whether Mode 2 keeps only one occurrence of each card number across its input files, and which occurrence wins.
+ * The last occurrence in the chosen file order wins; within a file, the last occurrence in the file.
+ */
+public enum CardDedup {
+    /** Every card is aggregated, so a card present in several files is counted once per file. */
+    NONE,
+    /** Files are ordered by name. */
+    FILE_ORDER,
+    /** Files are ordered by modification time, oldest first, and by name when the times are equal. */
+    MTIME;
+
+    /**
+     * @param name The dedup setting as written in Configuration.xml, in any case, with - or _ between words.
+     * @throws IllegalArgumentException If the name is not a known setting.
+     */
+    public static CardDedup fromName(String name) {
+        return valueOf(name.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns the files in the order their cards override each other, the winning file last.
+     */
+    public List<File> order(List<File> files) {
+        Comparator<File> byName = Comparator.comparing(File::getName);
+        List<File> ordered = new ArrayList<>(files);
+        ordered.sort(this == MTIME ? Comparator.comparingLong(File::lastModified).thenComparing(byName) : byName);
+        return ordered;
+    }
+}
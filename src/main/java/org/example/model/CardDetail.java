@@ -1,5 +1,6 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class CardDetail {
@@ -9,7 +10,9 @@ public class CardDetail {
     @JsonProperty("expire-date")
     private String expireDate;
 
-    public CardDetail(String cardNumber, String balance, String expireDate) {
+    @JsonCreator
+    public CardDetail(@JsonProperty("cardNumber") String cardNumber, @JsonProperty("balance") String balance,
+                      @JsonProperty("expire-date") String expireDate) {
         this.cardNumber = cardNumber;
         this.balance = balance;
         this.expireDate = expireDate;
@@ -0,0 +1,33 @@
+package org.example.model;
+
+import java.util.Locale;
+
+/**
+ * How output files are compressed. Gzip output is written as independently compressed blocks,
+ * which any gzip reader decompresses as one stream.
+ */
+public enum Compression {
+    NONE(""),
+    GZIP(".gz");
+
+    private final String extension;
+
+    Compression(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @param name The compression name as written in Configuration.xml, in any case.
+     * @throws IllegalArgumentException If the name is not a known compression.
+     */
+    public static Compression fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * The suffix appended to the output file name, including the leading dot. Empty for uncompressed output.
+     */
+    public String extension() {
+        return extension;
+    }
+}
@@ -1,12 +1,16 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 
 public class OutputFile {
     private int accountTotal;
     private List<Account> accounts;
 
-    public OutputFile(int accountTotal, List<Account> accounts) {
+    @JsonCreator
+    public OutputFile(@JsonProperty("accountTotal") int accountTotal, @JsonProperty("accounts") List<Account> accounts) {
         this.accountTotal = accountTotal;
         this.accounts = accounts;
     }
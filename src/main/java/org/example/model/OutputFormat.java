@@ -0,0 +1,40 @@
+package org.example.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.util.Locale;
+
+/**
+ * The encodings output files can be written in. All of them carry the same document as the JSON output;
+ * Smile and CBOR are binary encodings of it that are smaller and faster to parse for bulk loaders.
+ */
+public enum OutputFormat {
+    JSON,
+    SMILE,
+    CBOR;
+
+    /**
+     * @param name The format name as written in Configuration.xml, in any case.
+     * @throws IllegalArgumentException If the name is not a known format.
+     */
+    public static OutputFormat fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * The file extension of this format, including the leading dot.
+     */
+    public String extension() {
+        return "." + name().toLowerCase(Locale.ROOT);
+    }
+
+    public JsonFactory newFactory() {
+        return switch (this) {
+            case JSON -> new JsonFactory();
+            case SMILE -> new SmileFactory();
+            case CBOR -> new CBORFactory();
+        };
+    }
+}
@@ -1,5 +1,8 @@
 package org.example.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.List;
 
 public class Product {
@@ -7,7 +10,9 @@ public class Product {
     private String totalBalance;
     private List<CardDetail> details;
 
-    public Product(String name, String totalBalance, List<CardDetail> details) {
+    @JsonCreator
+    public Product(@JsonProperty("name") String name, @JsonProperty("totalBalance") String totalBalance,
+                   @JsonProperty("details") List<CardDetail> details) {
         this.name = name;
         this.totalBalance = totalBalance;
         this.details = details;
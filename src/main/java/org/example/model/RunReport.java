@@ -0,0 +1,27 @@
+package org.example.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The machine-readable summary of one processing run, written next to its output files.
+ * Phase times are in nanoseconds and summed over all worker threads, so with several threads
+ * they can add up to more than the elapsed time.
+ * @param phaseNanos Time spent per phase: read, parse, transform, serialize and write.
+ * @param allocatedBytes Heap allocated by the threads while working on files, where the JVM can measure it.
+ * @param peakQueueDepth The most tasks or files seen waiting in the run's executor or pipeline queues.
+ * @param gcCount Garbage collections during the run, across all collectors.
+ * @param files Per-file figures in completion order. In Mode 2 the aggregated output or each of its shards has an
+ *              entry of its own without an input file.
+ */
+public record RunReport(int mode, int threads, String startedAt, long elapsedNanos, long filesProcessed,
+                        long cardsProcessed, double cardsPerSecond, long bytesRead, long bytesWritten,
+                        Map<String, Long> phaseNanos, long allocatedBytes, int peakQueueDepth,
+                        long dateParseFailures, long gcCount, long gcMillis, List<FileReport> files) {
+    /**
+     * @param input The input file name, or null for a Mode 2 output.
+     * @param output The output file name, or null for a Mode 2 input.
+     */
+    public record FileReport(String input, String output, long bytesRead, long bytesWritten, long cards,
+                             Map<String, Long> phaseNanos, long allocatedBytes) {}
+}
@@ -0,0 +1,18 @@
+package org.example.model;
+
+import java.util.List;
+
+/**
+ * Lists the shards of a sharded aggregated result. It is written after every shard is complete,
+ * so its presence means the whole result can be read.
+ * @param accountTotal The number of accounts across all shards.
+ * @param shards The shards in account number order; their account ranges do not overlap.
+ */
+public record ShardManifest(int accountTotal, List<Shard> shards) {
+    /**
+     * @param file The shard's file name, in the same directory as the manifest.
+     * @param firstAccount The lowest account number in the shard.
+     * @param lastAccount The highest account number in the shard.
+     */
+    public record Shard(String file, int accountTotal, String firstAccount, String lastAccount) {}
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums a batch of balance strings with BalanceAccumulator and with BigDecimal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BalanceSumBenchmark {
+    @Param({"10000"})
+    public int balances;
+
+    private String[] values;
+
+    @Setup
+    public void setUp() {
+        values = SyntheticCards.generate(balances, 1, 1, 11).stream()
+                .map(card -> card.getBalance())
+                .toArray(String[]::new);
+    }
+
+    @Benchmark
+    public BigDecimal balanceAccumulator() {
+        BalanceAccumulator total = new BalanceAccumulator();
+        for (String value : values) {
+            total.add(value);
+        }
+        return total.toBigDecimal();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (String value : values) {
+            total = total.add(new BigDecimal(value));
+        }
+        return total;
+    }
+}
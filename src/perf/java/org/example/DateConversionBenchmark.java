@@ -0,0 +1,70 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts a batch of expiry dates with DateConverter, with and without its cache,
+ * next to the DateTimeFormatter round trip it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateConversionBenchmark {
+    private static final DateTimeFormatter INPUT_DATE_FORMAT = DateTimeFormatter.ofPattern("ddMMyyyy");
+    private static final DateTimeFormatter OUTPUT_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    @Param({"10000"})
+    public int dates;
+
+    private String[] expireDates;
+    private DateConverter cached;
+    private DateConverter uncached;
+
+    @Setup
+    public void setUp() {
+        expireDates = SyntheticCards.generate(dates, 1, 1, 7).stream()
+                .map(card -> card.getExpireDate())
+                .toArray(String[]::new);
+        cached = new DateConverter();
+        uncached = new DateConverter(0);
+    }
+
+    @Benchmark
+    public void cachedConverter(Blackhole blackhole) {
+        for (String date : expireDates) {
+            blackhole.consume(cached.convert(date));
+        }
+    }
+
+    @Benchmark
+    public void uncachedConverter(Blackhole blackhole) {
+        for (String date : expireDates) {
+            blackhole.consume(uncached.convert(date));
+        }
+    }
+
+    @Benchmark
+    public void dateTimeFormatter(Blackhole blackhole) {
+        for (String date : expireDates) {
+            blackhole.consume(LocalDate.parse(date, INPUT_DATE_FORMAT).minusYears(543).format(OUTPUT_DATE_FORMAT));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.InputFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads one generated input file: whole-tree binding into InputFile,
+ * and the streaming card reader with buffered and memory-mapped I/O.
+ * The grouping benchmarks read and group the file both into Card objects and into columnar batches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeserializationBenchmark {
+    @Param({"1000"})
+    public int accounts;
+
+    @Param({"5"})
+    public int productsPerAccount;
+
+    @Param({"20"})
+    public int cardsPerProduct;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DateConverter dateConverter = new DateConverter();
+    private Path directory;
+    private File inputFile;
+    private CardStreamReader bufferedReader;
+    private CardStreamReader mappedReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("deserialization-bench");
+        SyntheticCards.writeInputFiles(directory, objectMapper,
+                SyntheticCards.generate(accounts, productsPerAccount, cardsPerProduct, 42), 1);
+        inputFile = directory.resolve("input-0.json").toFile();
+        bufferedReader = new CardStreamReader(objectMapper, 0);
+        mappedReader = new CardStreamReader(objectMapper, 1);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(inputFile.toPath());
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public InputFile inputFileBinding() throws IOException {
+        return objectMapper.readValue(inputFile, InputFile.class);
+    }
+
+    @Benchmark
+    public long streamingBuffered(Blackhole blackhole) throws IOException {
+        return bufferedReader.read(inputFile, blackhole::consume);
+    }
+
+    @Benchmark
+    public long streamingMapped(Blackhole blackhole) throws IOException {
+        return mappedReader.read(inputFile, blackhole::consume);
+    }
+
+    @Benchmark
+    public void groupCardObjects(Blackhole blackhole) throws IOException {
+        CardAggregator aggregator = new CardAggregator(dateConverter);
+        bufferedReader.read(inputFile, aggregator::add);
+        aggregator.accounts().forEachRemaining(blackhole::consume);
+    }
+
+    @Benchmark
+    public void groupColumnarBatch(Blackhole blackhole) throws IOException {
+        CardBatch batch = new CardBatch(dateConverter);
+        bufferedReader.read(inputFile, batch);
+        batch.accounts().forEachRemaining(blackhole::consume);
+    }
+}
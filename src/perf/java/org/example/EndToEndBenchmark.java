@@ -0,0 +1,92 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.AppConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs DataProcessor.processFiles over a temp directory of generated input files,
+ * reporting the time per complete run. The output directory is emptied after every run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EndToEndBenchmark {
+    @Param({"1", "2"})
+    public int mode;
+
+    @Param({"4"})
+    public int threads;
+
+    @Param({"8"})
+    public int files;
+
+    @Param({"1000"})
+    public int accounts;
+
+    @Param({"5"})
+    public int productsPerAccount;
+
+    @Param({"20"})
+    public int cardsPerProduct;
+
+    private Path inputDir;
+    private Path outputDir;
+    private DataProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputDir = Files.createTempDirectory("e2e-bench-input");
+        outputDir = Files.createTempDirectory("e2e-bench-output");
+        SyntheticCards.writeInputFiles(inputDir, new ObjectMapper(),
+                SyntheticCards.generate(accounts, productsPerAccount, cardsPerProduct, 42), files);
+        processor = new DataProcessor(new AppConfig(threads, mode), inputDir.toString(), outputDir.toString());
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearOutput() throws IOException {
+        try (Stream<Path> outputs = Files.list(outputDir)) {
+            for (Path output : outputs.toList()) {
+                Files.delete(output);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (Path directory : new Path[]{inputDir, outputDir}) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void processFiles() {
+        processor.processFiles();
+    }
+}
@@ -0,0 +1,73 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.OutputFile;
+import org.example.model.OutputFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes and parses one grouped output document in each output format.
+ * The encoded size of every format is printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputFormatBenchmark {
+    @Param({"JSON", "SMILE", "CBOR"})
+    public OutputFormat format;
+
+    @Param({"1000"})
+    public int accounts;
+
+    @Param({"5"})
+    public int productsPerAccount;
+
+    @Param({"20"})
+    public int cardsPerProduct;
+
+    private OutputFile outputFile;
+    private JsonOutputWriter writer;
+    private ObjectMapper mapper;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        CardAggregator aggregator = new CardAggregator(new DateConverter());
+        SyntheticCards.generate(accounts, productsPerAccount, cardsPerProduct, 42).forEach(aggregator::add);
+        outputFile = aggregator.toOutputFile();
+        // Compact JSON is the fair comparison for a bulk loader
+        mapper = new ObjectMapper(format.newFactory());
+        writer = new JsonOutputWriter(mapper, false);
+        encoded = serialize();
+        System.out.println("Encoded size as " + format + ": " + encoded.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded == null ? 1 << 20 : encoded.length);
+        writer.write(out, outputFile.getAccountTotal(), outputFile.getAccounts().iterator());
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public OutputFile deserialize() throws IOException {
+        return mapper.readValue(encoded, OutputFile.class);
+    }
+}
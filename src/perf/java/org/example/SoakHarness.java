@@ -0,0 +1,390 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.RunReport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Soak test of the watcher pipeline: runs Main in its own JVM, the way it runs in production, and keeps dropping
+ * Configuration.xml into its Input folder for a number of runs or minutes, alternating between the given modes.
+ * The input is generated once, with a configurable size and skew of cards over files.
+ * <p>
+ * Per mode it records the end-to-end latency of each trigger (from writing Configuration.xml until Main deletes it,
+ * which includes Main's fixed delay before reading it) and the processing throughput from the run reports.
+ * For the whole soak it records Main's peak RSS, its RSS after the first and the last run, and its GC pauses
+ * from a GC log. The results are printed and written as JSON.
+ * <p>
+ * With a baseline file from an earlier soak of the same shape, the harness exits with status 1 when the throughput
+ * of a mode falls more than the allowed fraction below the baseline's. Run it with:
+ * {@code mvn -Psoak compile exec:exec -Dsoak.args="--runs=50 --skew=1"}, and record a baseline on the machine
+ * the soak runs on with {@code --save-baseline}. Options are {@code --name=value}; see {@link Options}.
+ */
+public final class SoakHarness {
+    private static final String TRIGGER_FILE = "Configuration.xml";
+    private static final Pattern GC_PAUSE = Pattern.compile("\\bPause\\b.*\\s(\\d+(?:\\.\\d+)?)ms$");
+    private static final Pattern PEAK_RSS = Pattern.compile("^VmHWM:\\s+(\\d+) kB");
+    private static final Pattern RSS = Pattern.compile("^VmRSS:\\s+(\\d+) kB");
+
+    /**
+     * @param files Number of input files.
+     * @param accounts Accounts in the generated input; each has 3 products of 5 cards.
+     * @param skew How unevenly cards are spread over files, see {@link SyntheticCards#writeSkewedInputFiles}.
+     * @param threads The Thread setting of every trigger.
+     * @param modes The modes triggered in turn.
+     * @param runs Number of triggers, unless minutes is set.
+     * @param minutes Keep triggering for this long instead of a number of runs.
+     * @param timeoutSeconds Longest a single run may take before the soak fails.
+     * @param jvmArgs Extra options for Main's JVM, separated by spaces.
+     * @param baseline Result of an earlier soak to compare with.
+     * @param maxRegression Largest allowed drop in throughput below the baseline, as a fraction.
+     * @param saveBaseline Write this soak's result as the new baseline.
+     * @param result Where this soak's result is written.
+     */
+    record Options(int files, int accounts, double skew, int threads, int[] modes, int runs, double minutes,
+                   long timeoutSeconds, String jvmArgs, Path baseline, double maxRegression, boolean saveBaseline,
+                   Path result) {
+        static Options parse(String[] args) {
+            Map<String, String> values = new HashMap<>();
+            for (String arg : args) {
+                if (!arg.startsWith("--")) {
+                    throw new IllegalArgumentException("Options look like --name=value, not " + arg);
+                }
+                int equals = arg.indexOf('=');
+                values.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals),
+                        equals < 0 ? "true" : arg.substring(equals + 1));
+            }
+            Options options = new Options(
+                    Integer.parseInt(values.getOrDefault("files", "16")),
+                    Integer.parseInt(values.getOrDefault("accounts", "2000")),
+                    Double.parseDouble(values.getOrDefault("skew", "0")),
+                    Integer.parseInt(values.getOrDefault("threads",
+                            String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                    Arrays.stream(values.getOrDefault("modes", "1,2").split(",")).map(String::trim)
+                            .mapToInt(Integer::parseInt).toArray(),
+                    Integer.parseInt(values.getOrDefault("runs", "20")),
+                    Double.parseDouble(values.getOrDefault("minutes", "0")),
+                    Long.parseLong(values.getOrDefault("timeout-seconds", "600")),
+                    values.getOrDefault("jvm-args", ""),
+                    Paths.get(values.getOrDefault("baseline", "soak-baseline.json")),
+                    Double.parseDouble(values.getOrDefault("max-regression", "0.10")),
+                    Boolean.parseBoolean(values.getOrDefault("save-baseline", "false")),
+                    Paths.get(values.getOrDefault("result", "target/soak/soak-result.json")));
+            if (options.files < 1 || options.accounts < 1 || options.threads < 1 || options.modes.length == 0) {
+                throw new IllegalArgumentException("files, accounts, threads and modes must be positive");
+            }
+            return options;
+        }
+    }
+
+    /**
+     * @param cardsPerSecond Cards processed per second of processing time, summed over the mode's runs.
+     */
+    record ModeResult(int mode, int runs, long cards, double cardsPerSecond, double p50Millis, double p95Millis,
+                      double p99Millis, double maxMillis) {}
+
+    record SoakResult(String startedAt, int files, int cardsPerRun, double skew, int threads, long soakMillis,
+                      List<ModeResult> modes, long peakRssKb, long firstRunRssKb, long lastRunRssKb,
+                      long gcPauses, double gcPauseTotalMillis, double gcPauseMaxMillis) {
+        boolean sameShape(SoakResult other) {
+            return files == other.files && cardsPerRun == other.cardsPerRun && skew == other.skew
+                    && threads == other.threads;
+        }
+    }
+
+    private final Options options;
+    private final Path workDir;
+    private final Path inputDir;
+    private final Path outputDir;
+    private final Path gcLog;
+    private final Path mainLog;
+
+    private SoakHarness(Options options, Path workDir) {
+        this.options = options;
+        this.workDir = workDir;
+        this.inputDir = workDir.resolve("Input");
+        this.outputDir = workDir.resolve("Output");
+        this.gcLog = workDir.resolve("gc.log");
+        this.mainLog = workDir.resolve("main.log");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Options options = Options.parse(args);
+        Path workDir = Files.createTempDirectory("soak");
+        SoakResult result;
+        try {
+            result = new SoakHarness(options, workDir).soak();
+        } finally {
+            deleteRecursively(workDir);
+        }
+        print(result);
+
+        ObjectMapper mapper = JsonMappers.JSON;
+        Files.createDirectories(options.result().toAbsolutePath().getParent());
+        mapper.writeValue(options.result().toFile(), result);
+        System.out.println("📝 Result: " + options.result().toAbsolutePath());
+
+        boolean regressed = false;
+        if (Files.exists(options.baseline())) {
+            regressed = regressed(result, mapper.readValue(options.baseline().toFile(), SoakResult.class), options);
+        } else {
+            System.out.println("🟡 No baseline at " + options.baseline().toAbsolutePath() + ", nothing to compare with.");
+        }
+        if (options.saveBaseline()) {
+            mapper.writeValue(options.baseline().toFile(), result);
+            System.out.println("📝 Saved as the baseline: " + options.baseline().toAbsolutePath());
+        }
+        if (regressed) {
+            System.exit(1);
+        }
+    }
+
+    private SoakResult soak() throws IOException, InterruptedException {
+        Files.createDirectories(inputDir);
+        Files.createDirectories(outputDir);
+        int cards = options.accounts() * 3 * 5;
+        SyntheticCards.writeSkewedInputFiles(inputDir, new ObjectMapper(),
+                SyntheticCards.generate(options.accounts(), 3, 5, 42), options.files(), options.skew());
+        System.out.println("🧪 Generated " + cards + " cards in " + options.files() + " files (skew "
+                + options.skew() + ") in " + workDir);
+
+        Process main = startMain();
+        Instant startedAt = Instant.now();
+        long soakStart = System.nanoTime();
+        long soakEnd = soakStart + (long) (options.minutes() * TimeUnit.MINUTES.toNanos(1));
+        Map<Integer, List<Long>> latencies = new LinkedHashMap<>();
+        Map<Integer, long[]> processed = new LinkedHashMap<>(); // mode -> {cards, elapsed nanos}
+        long firstRunRss = -1;
+        long lastRunRss = -1;
+        long peakRss;
+        try {
+            for (int run = 0; options.minutes() > 0 ? System.nanoTime() < soakEnd : run < options.runs(); run++) {
+                int mode = options.modes()[run % options.modes().length];
+                long latency = trigger(main, mode);
+                RunReport report = takeRunReport();
+                latencies.computeIfAbsent(mode, m -> new ArrayList<>()).add(latency);
+                long[] totals = processed.computeIfAbsent(mode, m -> new long[2]);
+                totals[0] += report.cardsProcessed();
+                totals[1] += report.elapsedNanos();
+
+                lastRunRss = procStatus(main, RSS);
+                if (run == 0) {
+                    firstRunRss = lastRunRss;
+                }
+                System.out.println("🔁 Run " + (run + 1) + ", mode " + mode + ": "
+                        + TimeUnit.NANOSECONDS.toMillis(latency) + " ms end to end, "
+                        + report.cardsProcessed() + " cards, RSS " + lastRunRss / 1024 + " MB");
+            }
+            peakRss = procStatus(main, PEAK_RSS);
+        } finally {
+            main.destroy();
+            main.waitFor();
+        }
+
+        List<ModeResult> modes = new ArrayList<>();
+        for (Map.Entry<Integer, List<Long>> entry : latencies.entrySet()) {
+            List<Long> sorted = entry.getValue().stream().sorted().toList();
+            long[] totals = processed.get(entry.getKey());
+            modes.add(new ModeResult(entry.getKey(), sorted.size(), totals[0],
+                    totals[1] == 0 ? 0 : totals[0] * 1e9 / totals[1],
+                    percentileMillis(sorted, 50), percentileMillis(sorted, 95), percentileMillis(sorted, 99),
+                    percentileMillis(sorted, 100)));
+        }
+        double[] pauses = gcPauses();
+        return new SoakResult(startedAt.toString(), options.files(), cards, options.skew(), options.threads(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - soakStart), modes, peakRss, firstRunRss, lastRunRss,
+                pauses.length, Arrays.stream(pauses).sum(), Arrays.stream(pauses).max().orElse(0));
+    }
+
+    /**
+     * Starts Main in the work directory and waits until it watches for the trigger file.
+     */
+    private Process startMain() throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-Xlog:gc:file=" + gcLog);
+        if (!options.jvmArgs().isBlank()) {
+            command.addAll(Arrays.asList(options.jvmArgs().trim().split("\\s+")));
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), Main.class.getName()));
+        // Main's output goes to a file rather than a pipe, which would block Main once nobody reads it
+        Process main = new ProcessBuilder(command).directory(workDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(mainLog.toFile())
+                .start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.timeoutSeconds());
+        while (!Files.exists(mainLog) || !Files.readString(mainLog, StandardCharsets.UTF_8).contains("Waiting for")) {
+            checkRunning(main, deadline, "watching for " + TRIGGER_FILE);
+            Thread.sleep(10);
+        }
+        return main;
+    }
+
+    /**
+     * Drops a Configuration.xml for the mode and waits until Main has processed it and deleted it.
+     * @return The end-to-end latency in nanoseconds.
+     */
+    private long trigger(Process main, int mode) throws IOException, InterruptedException {
+        Path trigger = inputDir.resolve(TRIGGER_FILE);
+        // The run report is off by default and is where the throughput comes from
+        String config = "<Configuration><Thread>" + options.threads() + "</Thread><Mode>" + mode
+                + "</Mode><RunReport>true</RunReport></Configuration>";
+        long start = System.nanoTime();
+        Files.writeString(trigger, config, StandardCharsets.UTF_8);
+        long deadline = start + TimeUnit.SECONDS.toNanos(options.timeoutSeconds());
+        while (Files.exists(trigger)) {
+            checkRunning(main, deadline, "processing mode " + mode);
+            Thread.sleep(1);
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Reads the run report of the run that just finished and empties the Output folder, so a long soak does not
+     * fill the disk and the next run's report is the only one.
+     */
+    private RunReport takeRunReport() throws IOException {
+        Path report;
+        try (Stream<Path> files = Files.list(outputDir)) {
+            report = files.filter(path -> path.getFileName().toString().startsWith("run-report_"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Main wrote no run report, see " + mainLog));
+        }
+        RunReport runReport = JsonMappers.JSON.readValue(report.toFile(), RunReport.class);
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                if (!path.equals(outputDir)) {
+                    Files.delete(path);
+                }
+            }
+        }
+        return runReport;
+    }
+
+    private void checkRunning(Process main, long deadline, String doing) throws IOException {
+        if (!main.isAlive()) {
+            throw new IllegalStateException("Main exited while " + doing + ":\n" + tail(mainLog));
+        }
+        if (System.nanoTime() > deadline) {
+            throw new IllegalStateException("Main took more than " + options.timeoutSeconds() + " s "
+                    + doing + ":\n" + tail(mainLog));
+        }
+    }
+
+    /**
+     * @return A size from /proc/[pid]/status in kB, or -1 where there is no /proc.
+     */
+    private static long procStatus(Process process, Pattern field) throws IOException {
+        Path status = Paths.get("/proc", String.valueOf(process.pid()), "status");
+        if (!Files.isReadable(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+            Matcher matcher = field.matcher(line);
+            if (matcher.find()) {
+                return Long.parseLong(matcher.group(1));
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Every GC pause in Main's GC log, in milliseconds.
+     */
+    private double[] gcPauses() throws IOException {
+        if (!Files.exists(gcLog)) {
+            return new double[0];
+        }
+        List<Double> pauses = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(gcLog, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = GC_PAUSE.matcher(line);
+                if (matcher.find()) {
+                    pauses.add(Double.parseDouble(matcher.group(1)));
+                }
+            }
+        }
+        return pauses.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Nearest-rank percentile of sorted nanosecond latencies.
+     */
+    private static double percentileMillis(List<Long> sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, rank - 1)) / 1e6;
+    }
+
+    private static boolean regressed(SoakResult result, SoakResult baseline, Options options) {
+        if (!result.sameShape(baseline)) {
+            System.out.println("🟡 The baseline was recorded with different files, cards, skew or threads; "
+                    + "not comparing.");
+            return false;
+        }
+        boolean regressed = false;
+        for (ModeResult mode : result.modes()) {
+            ModeResult before = baseline.modes().stream().filter(m -> m.mode() == mode.mode()).findFirst().orElse(null);
+            if (before == null || before.cardsPerSecond() <= 0) {
+                continue;
+            }
+            double change = mode.cardsPerSecond() / before.cardsPerSecond() - 1;
+            String line = String.format("mode %d: %.0f cards/s vs %.0f in the baseline (%+.1f%%)",
+                    mode.mode(), mode.cardsPerSecond(), before.cardsPerSecond(), change * 100);
+            if (change < -options.maxRegression()) {
+                System.err.println("❌ Throughput regression in " + line);
+                regressed = true;
+            } else {
+                System.out.println("✅ " + line);
+            }
+        }
+        return regressed;
+    }
+
+    private static void print(SoakResult result) {
+        System.out.println("📊 Soak of " + result.soakMillis() / 1000 + " s, " + result.cardsPerRun() + " cards per run, "
+                + result.threads() + " threads");
+        for (ModeResult mode : result.modes()) {
+            System.out.printf("   mode %d: %d runs, %.0f cards/s, latency p50 %.0f ms, p95 %.0f ms, p99 %.0f ms,"
+                            + " max %.0f ms%n", mode.mode(), mode.runs(), mode.cardsPerSecond(), mode.p50Millis(),
+                    mode.p95Millis(), mode.p99Millis(), mode.maxMillis());
+        }
+        System.out.printf("   RSS: peak %d MB, after the first run %d MB, after the last run %d MB%n",
+                result.peakRssKb() / 1024, result.firstRunRssKb() / 1024, result.lastRunRssKb() / 1024);
+        System.out.printf("   GC: %d pauses, %.1f ms in total, longest %.1f ms%n",
+                result.gcPauses(), result.gcPauseTotalMillis(), result.gcPauseMaxMillis());
+    }
+
+    private static String tail(Path log) throws IOException {
+        if (!Files.exists(log)) {
+            return "";
+        }
+        List<String> lines = Files.readAllLines(log, StandardCharsets.UTF_8);
+        return String.join("\n", lines.subList(Math.max(0, lines.size() - 20), lines.size()));
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.stream.Stream;
+
+/**
+ * Measures time to first output: from launching Main in a fresh JVM until the output of its one input file exists.
+ * Configuration.xml is dropped in as soon as Main reports that it is waiting for it, so the time includes
+ * JVM startup, class loading and processing the file, plus Main's fixed delay before reading the trigger file.
+ * With cds=true, an AppCDS archive is recorded once per trial from a warm-up run, the way the cds Maven profile
+ * records it, and every launch maps it. CDS only archives classes from jars, so the class path is jarred first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+    private static final String CONFIG = "<Configuration><Thread>2</Thread><Mode>1</Mode></Configuration>";
+
+    @Param({"false", "true"})
+    public boolean cds;
+
+    @Param({"200"})
+    public int accounts;
+
+    private Path workDir;
+    private Path runDir;
+    private List<String> command;
+    private Process process;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        workDir = Files.createTempDirectory("startup-bench");
+        Files.createDirectories(workDir.resolve("sample"));
+        SyntheticCards.writeInputFiles(workDir.resolve("sample"), new ObjectMapper(),
+                SyntheticCards.generate(accounts, 3, 5, 42), 1);
+
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classPath = jarredClassPath(System.getProperty("java.class.path"));
+        command = new ArrayList<>(List.of(java, "-cp", classPath));
+        if (cds) {
+            Path archive = workDir.resolve("app-cds.jsa");
+            Process training = new ProcessBuilder(java, "-XX:ArchiveClassesAtExit=" + archive, "-cp", classPath,
+                    Main.class.getName(), "--warmup")
+                    .directory(workDir.toFile())
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectErrorStream(true)
+                    .start();
+            if (training.waitFor() != 0 || !Files.exists(archive)) {
+                throw new IllegalStateException("Recording the AppCDS archive failed");
+            }
+            command.add(1, "-XX:SharedArchiveFile=" + archive);
+        }
+        command.add(Main.class.getName());
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareRun() throws IOException {
+        runDir = Files.createTempDirectory(workDir, "run");
+        Path inputDir = Files.createDirectories(runDir.resolve("Input"));
+        Files.copy(workDir.resolve("sample").resolve("input-0.json"), inputDir.resolve("input-0.json"));
+    }
+
+    @TearDown(Level.Invocation)
+    public void finishRun() throws IOException, InterruptedException {
+        if (process != null) {
+            process.destroy();
+            process.waitFor();
+            process = null;
+        }
+        deleteRecursively(runDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    public long timeToFirstOutput() throws IOException, InterruptedException {
+        process = new ProcessBuilder(command).directory(runDir.toFile()).redirectErrorStream(true).start();
+        BufferedReader log = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        do {
+            line = log.readLine();
+            if (line == null) {
+                throw new IllegalStateException("Main exited before waiting for the trigger file");
+            }
+        } while (!line.contains("Waiting for"));
+
+        Files.writeString(runDir.resolve("Input").resolve("Configuration.xml"), CONFIG);
+        // Output files are renamed into place complete, so their existence marks the end
+        Path output = runDir.resolve("Output").resolve("input-0.json");
+        while (!Files.exists(output)) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Main exited before writing its output");
+            }
+            Thread.sleep(1);
+        }
+        return Files.size(output);
+    }
+
+    /**
+     * Replaces every directory on the class path with a jar of its contents in the work directory.
+     */
+    private String jarredClassPath(String classPath) throws IOException {
+        List<String> entries = new ArrayList<>();
+        for (String entry : classPath.split(File.pathSeparator)) {
+            Path path = Paths.get(entry);
+            if (!Files.isDirectory(path)) {
+                entries.add(entry);
+                continue;
+            }
+            Path jar = workDir.resolve("classes-" + entries.size() + ".jar");
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+                 Stream<Path> files = Files.walk(path)) {
+                for (Path file : files.filter(Files::isRegularFile).toList()) {
+                    out.putNextEntry(new ZipEntry(path.relativize(file).toString().replace(File.separatorChar, '/')));
+                    Files.copy(file, (OutputStream) out);
+                    out.closeEntry();
+                }
+            }
+            entries.add(jar.toString());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
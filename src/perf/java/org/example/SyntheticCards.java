@@ -0,0 +1,107 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.Card;
+import org.example.model.InputFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible card data for the benchmarks.
+ * The shape is controlled by the number of accounts, products per account and cards per product,
+ * and the cards are shuffled so grouping sees them in no particular order.
+ */
+final class SyntheticCards {
+    private static final String[] PRODUCTS = {
+            "Platinum Card", "Gold Card", "Classic Card", "Travel Card", "Cashback Card",
+            "Student Card", "Business Card", "Shopping Card", "Fuel Card", "Signature Card"
+    };
+
+    private SyntheticCards() {
+    }
+
+    /**
+     * @param seed Cards generated with the same arguments and seed are identical.
+     */
+    static List<Card> generate(int accounts, int productsPerAccount, int cardsPerProduct, long seed) {
+        Random random = new Random(seed);
+        List<Card> cards = new ArrayList<>(accounts * productsPerAccount * cardsPerProduct);
+        for (int account = 0; account < accounts; account++) {
+            String accountNumber = String.format("%010d", 1_000_000_000L + account);
+            for (int product = 0; product < productsPerAccount; product++) {
+                String productName = productName(product);
+                for (int card = 0; card < cardsPerProduct; card++) {
+                    cards.add(card(accountNumber, productName, random));
+                }
+            }
+        }
+        Collections.shuffle(cards, random);
+        return cards;
+    }
+
+    /**
+     * Splits the generated cards over input files named input-N.json in the given directory.
+     */
+    static void writeInputFiles(Path directory, ObjectMapper objectMapper, List<Card> cards, int files)
+            throws IOException {
+        int perFile = (cards.size() + files - 1) / files;
+        for (int i = 0; i < files; i++) {
+            List<Card> slice = cards.subList(Math.min(cards.size(), i * perFile),
+                    Math.min(cards.size(), (i + 1) * perFile));
+            InputFile inputFile = new InputFile();
+            inputFile.setCardTotal(slice.size());
+            inputFile.setCards(new ArrayList<>(slice));
+            objectMapper.writeValue(directory.resolve("input-" + i + ".json").toFile(), inputFile);
+        }
+    }
+
+    /**
+     * Splits the generated cards over input files like {@link #writeInputFiles}, with file i getting a share
+     * proportional to 1 / (i + 1)^skew: 0 splits evenly, 1 gives the first file about a third of 10 files' cards.
+     * Every file gets at least one card while there are enough.
+     */
+    static void writeSkewedInputFiles(Path directory, ObjectMapper objectMapper, List<Card> cards, int files,
+                                      double skew) throws IOException {
+        double[] weights = new double[files];
+        double totalWeight = 0;
+        for (int i = 0; i < files; i++) {
+            weights[i] = 1 / Math.pow(i + 1, skew);
+            totalWeight += weights[i];
+        }
+        int start = 0;
+        for (int i = 0; i < files; i++) {
+            int remainingFiles = files - i - 1;
+            int size = i == files - 1
+                    ? cards.size() - start
+                    : (int) Math.max(1, Math.round(cards.size() * weights[i] / totalWeight));
+            size = Math.max(0, Math.min(size, cards.size() - start - remainingFiles));
+            InputFile inputFile = new InputFile();
+            inputFile.setCardTotal(size);
+            inputFile.setCards(new ArrayList<>(cards.subList(start, start + size)));
+            objectMapper.writeValue(directory.resolve("input-" + i + ".json").toFile(), inputFile);
+            start += size;
+        }
+    }
+
+    private static String productName(int product) {
+        String name = PRODUCTS[product % PRODUCTS.length];
+        return product < PRODUCTS.length ? name : name + " " + (product / PRODUCTS.length + 1);
+    }
+
+    private static Card card(String accountNumber, String productName, Random random) {
+        Card card = new Card();
+        card.setAccountNumber(accountNumber);
+        card.setProductName(productName);
+        card.setCardNumber(String.format("4%015d", random.nextLong(1_000_000_000_000_000L)));
+        card.setBalance(random.nextInt(100_000) + "." + String.format("%02d", random.nextInt(100)));
+        // Expiry dates repeat heavily in real data: a few years of month-end dates in Buddhist years
+        card.setExpireDate(String.format("%02d%02d%d", 1 + random.nextInt(28), 1 + random.nextInt(12),
+                2568 + random.nextInt(5)));
+        return card;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+import org.example.model.AppConfig;
+import org.example.model.Card;
+import org.example.model.OutputFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Groups an in-memory list of cards with DataProcessor.transformData.
+ * threads=1 is the sequential path; more threads split large lists over a ForkJoinPool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark {
+    @Param({"1000"})
+    public int accounts;
+
+    @Param({"5"})
+    public int productsPerAccount;
+
+    @Param({"20"})
+    public int cardsPerProduct;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private DataProcessor processor;
+    private List<Card> cards;
+
+    @Setup
+    public void setUp() throws Exception {
+        String unused = Files.createTempDirectory("transform-bench").toString();
+        processor = new DataProcessor(new AppConfig(threads, 1), unused, unused);
+        cards = SyntheticCards.generate(accounts, productsPerAccount, cardsPerProduct, 42);
+    }
+
+    @Benchmark
+    public OutputFile transformData() {
+        return processor.transformData(cards);
+    }
+}
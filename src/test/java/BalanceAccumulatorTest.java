@@ -0,0 +1,128 @@
+import org.example.BalanceAccumulator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the BalanceAccumulator class.
+ * Every sum is checked against the BigDecimal arithmetic it replaces.
+ */
+class BalanceAccumulatorTest {
+
+    @Test
+    @DisplayName("Should sum two-decimal currency strings like BigDecimal")
+    void testAdd_WithCurrencyBalances_ShouldMatchBigDecimal() {
+        assertMatchesBigDecimal(List.of("55.24", "999.89"));
+        assertMatchesBigDecimal(List.of("150.00"));
+        assertMatchesBigDecimal(List.of("10", "20"));
+        assertMatchesBigDecimal(List.of("0.05", "-0.05"));
+        assertMatchesBigDecimal(List.of("-0.00"));
+        assertMatchesBigDecimal(List.of("-1.5", "0.25"));
+    }
+
+    @Test
+    @DisplayName("Should keep the largest scale seen like BigDecimal.add")
+    void testAdd_WithMixedScales_ShouldKeepLargestScale() {
+        assertMatchesBigDecimal(List.of("1", "2.5", "3.125"));
+        assertMatchesBigDecimal(List.of("0.001", "100"));
+        assertMatchesBigDecimal(List.of("+.5", "7.", "007.50"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to BigDecimal for exponents, long values and overflow")
+    void testAdd_WithValuesOutsideFastPath_ShouldMatchBigDecimal() {
+        assertMatchesBigDecimal(List.of("1E+3", "5"));
+        assertMatchesBigDecimal(List.of("1.5e-3", "2.25"));
+        assertMatchesBigDecimal(List.of("12345678901234567890.12", "1"));
+        assertMatchesBigDecimal(List.of("999999999999999999", "999999999999999999", "0.5"));
+        assertMatchesBigDecimal(List.of("9.99999999999999999", "99999999999999999"));
+        assertMatchesBigDecimal(List.of("-999999999999999999", "-999999999999999999"));
+    }
+
+    @Test
+    @DisplayName("Should match BigDecimal over randomized balances")
+    void testAdd_WithRandomBalances_ShouldMatchBigDecimal() {
+        Random random = new Random(2568);
+        for (int run = 0; run < 5_000; run++) {
+            List<String> balances = new ArrayList<>();
+            int count = 1 + random.nextInt(20);
+            for (int i = 0; i < count; i++) {
+                balances.add(randomBalance(random));
+            }
+            assertMatchesBigDecimal(balances);
+        }
+    }
+
+    @Test
+    @DisplayName("Should match BigDecimal when merging accumulators")
+    void testAddAccumulator_WithRandomPartialSums_ShouldMatchBigDecimal() {
+        Random random = new Random(543);
+        for (int run = 0; run < 2_000; run++) {
+            BalanceAccumulator merged = new BalanceAccumulator();
+            BigDecimal expected = BigDecimal.ZERO;
+            for (int part = 0; part < 1 + random.nextInt(5); part++) {
+                BalanceAccumulator partial = new BalanceAccumulator();
+                for (int i = 0; i < 1 + random.nextInt(5); i++) {
+                    String balance = randomBalance(random);
+                    partial.add(balance);
+                    expected = expected.add(new BigDecimal(balance));
+                }
+                merged.add(partial);
+            }
+            assertThat(merged.toPlainString()).isEqualTo(expected.toPlainString());
+            assertThat(merged.toBigDecimal()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("Should throw NumberFormatException for strings BigDecimal rejects")
+    void testAdd_WithInvalidBalance_ShouldThrowException() {
+        for (String invalid : List.of("not-a-number", "", "-", ".", "1.2.3", "12a", " 1")) {
+            BalanceAccumulator accumulator = new BalanceAccumulator();
+            assertThatThrownBy(() -> accumulator.add(invalid)).isInstanceOf(NumberFormatException.class);
+        }
+    }
+
+    private static String randomBalance(Random random) {
+        String sign = switch (random.nextInt(10)) {
+            case 0 -> "-";
+            case 1 -> "+";
+            default -> "";
+        };
+        return switch (random.nextInt(8)) {
+            case 0 -> sign + random.nextInt(1_000);
+            case 1 -> sign + random.nextInt(100) + "." + digits(random, 1 + random.nextInt(4));
+            case 2 -> sign + digits(random, 1 + random.nextInt(19)) + "." + digits(random, random.nextInt(6));
+            case 3 -> sign + random.nextLong(Long.MAX_VALUE / 10) + "." + digits(random, 2);
+            case 4 -> sign + random.nextInt(1_000) + "E" + (random.nextInt(11) - 5);
+            case 5 -> sign + "." + digits(random, 1 + random.nextInt(20));
+            default -> sign + random.nextInt(100_000) + "." + digits(random, 2);
+        };
+    }
+
+    private static String digits(Random random, int count) {
+        StringBuilder digits = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        return digits.toString();
+    }
+
+    private static void assertMatchesBigDecimal(List<String> balances) {
+        BalanceAccumulator accumulator = new BalanceAccumulator();
+        BigDecimal expected = BigDecimal.ZERO;
+        for (String balance : balances) {
+            accumulator.add(balance);
+            expected = expected.add(new BigDecimal(balance));
+        }
+        assertThat(accumulator.toPlainString()).as("sum of %s", balances).isEqualTo(expected.toPlainString());
+        assertThat(accumulator.toBigDecimal()).as("sum of %s", balances).isEqualTo(expected);
+    }
+}
@@ -1,11 +1,29 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.example.model.AppConfig;
+import org.example.AccountLookup;
 import org.example.DataProcessor;
+import org.example.OutputFileReader;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import org.example.model.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -170,4 +188,505 @@ class DataProcessorTest {
 
         assertThat(exception).isInstanceOf(NumberFormatException.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should stream an input file from disk and write the grouped output in Mode 1")
+    void testProcessFiles_WithSampleFile_ShouldWriteGroupedOutput(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: Lay out an Input folder holding the sample file ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Path outputDir = Files.createDirectories(tempDir.resolve("Output"));
+        Files.writeString(inputDir.resolve("sample.json"), """
+                {
+                  "cardTotal": 3,
+                  "cards": [
+                    { "productName": "debit-card", "cardNumber": "1234567890123457", "accountNumber": "1234567890123",
+                      "balance": "999.89", "expire-date": "01052569" },
+                    { "productName": "prepaid-card", "cardNumber": "1234567890123458", "accountNumber": "1234567890123",
+                      "balance": "150.00", "expire-date": "01032569" },
+                    { "productName": "debit-card", "cardNumber": "1234567890123456", "accountNumber": "1234567890123",
+                      "balance": "55.24", "expire-date": "01092568" }
+                  ]
+                }
+                """);
+
+        // --- Act ---
+        new DataProcessor(new AppConfig(1, 1), inputDir.toString(), outputDir.toString()).processFiles();
+
+        // --- Assert: The output matches the documented sample output ---
+        assertThat(outputDir.resolve("sample.json")).hasContent("""
+                {
+                  "accountTotal" : 1,
+                  "accounts" : [ {
+                    "accountNumber" : "1234567890123",
+                    "products" : [ {
+                      "name" : "prepaid-card",
+                      "totalBalance" : "150.00",
+                      "details" : [ {
+                        "cardNumber" : "1234567890123458",
+                        "balance" : "150.00",
+                        "expire-date" : "2026-03-01"
+                      } ]
+                    }, {
+                      "name" : "debit-card",
+                      "totalBalance" : "1055.13",
+                      "details" : [ {
+                        "cardNumber" : "1234567890123456",
+                        "balance" : "55.24",
+                        "expire-date" : "2025-09-01"
+                      }, {
+                        "cardNumber" : "1234567890123457",
+                        "balance" : "999.89",
+                        "expire-date" : "2026-05-01"
+                      } ]
+                    } ]
+                  } ]
+                }""");
+    }
+
+    @Test
+    @DisplayName("Should write the same Mode 2 output when aggregation spills to disk")
+    void testProcessFiles_WithSpillingAggregation_ShouldMatchInMemoryOutput(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: Several input files sharing accounts, and two output folders ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Path inMemoryOutputDir = Files.createDirectories(tempDir.resolve("InMemory"));
+        Path spilledOutputDir = Files.createDirectories(tempDir.resolve("Spilled"));
+        Random random = new Random(42);
+        for (int file = 0; file < 3; file++) {
+            writeInputFile(inputDir.resolve("cards-" + file + ".json"), randomCards(random, 200));
+        }
+
+        Path resplitOutputDir = Files.createDirectories(tempDir.resolve("Resplit"));
+
+        // --- Act: Run without a budget, with a budget that forces spilling, and with one so small that
+        // spilled partitions outgrow it again and are split further when merged back ---
+        new DataProcessor(new AppConfig(1, 2), inputDir.toString(), inMemoryOutputDir.toString()).processFiles();
+        new DataProcessor(AppConfig.builder(1, 2).memoryBudgetBytes(4096).build(),
+                inputDir.toString(), spilledOutputDir.toString()).processFiles();
+        new DataProcessor(AppConfig.builder(1, 2).memoryBudgetBytes(64).build(),
+                inputDir.toString(), resplitOutputDir.toString()).processFiles();
+
+        // --- Assert ---
+        assertThat(singleFile(spilledOutputDir)).hasSameBinaryContentAs(singleFile(inMemoryOutputDir));
+        assertThat(singleFile(resplitOutputDir)).hasSameBinaryContentAs(singleFile(inMemoryOutputDir));
+    }
+
+    @Test
+    @DisplayName("Should keep the cards read before an error in Mode 2 whatever the number of threads")
+    void testProcessFiles_WithTruncatedFile_ShouldAggregateTheSameWithOneOrManyThreads(@TempDir Path tempDir)
+            throws IOException {
+        // --- Arrange: Two complete input files and one cut off in the middle of its cards ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Path completeInputDir = Files.createDirectories(tempDir.resolve("CompleteInput"));
+        Random random = new Random(5);
+        for (int file = 0; file < 2; file++) {
+            writeInputFile(inputDir.resolve("cards-" + file + ".json"), randomCards(random, 200));
+            Files.copy(inputDir.resolve("cards-" + file + ".json"), completeInputDir.resolve("cards-" + file + ".json"));
+        }
+        Path truncated = inputDir.resolve("cards-2.json");
+        writeInputFile(truncated, randomCards(random, 200));
+        byte[] content = Files.readAllBytes(truncated);
+        Files.write(truncated, Arrays.copyOf(content, content.length * 3 / 5));
+
+        // --- Act ---
+        Path sequentialOutputDir = Files.createDirectories(tempDir.resolve("Sequential"));
+        Path parallelOutputDir = Files.createDirectories(tempDir.resolve("Parallel"));
+        Path completeOutputDir = Files.createDirectories(tempDir.resolve("Complete"));
+        new DataProcessor(new AppConfig(1, 2), inputDir.toString(), sequentialOutputDir.toString()).processFiles();
+        new DataProcessor(new AppConfig(4, 2), inputDir.toString(), parallelOutputDir.toString()).processFiles();
+        new DataProcessor(new AppConfig(1, 2), completeInputDir.toString(), completeOutputDir.toString()).processFiles();
+
+        // --- Assert: Both runs include the cards before the cut, so they differ from the complete files alone ---
+        assertThat(singleFile(parallelOutputDir)).hasSameBinaryContentAs(singleFile(sequentialOutputDir));
+        assertThat(Files.readString(singleFile(sequentialOutputDir)))
+                .isNotEqualTo(Files.readString(singleFile(completeOutputDir)));
+    }
+
+    @Test
+    @DisplayName("Should reuse stored partials of unchanged files and match a full Mode 2 run")
+    void testProcessFiles_WithPartialStore_ShouldMatchFullAggregation(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: Three input files aggregated once with a partial store, then one of them changes ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Path partialStoreDir = tempDir.resolve("Partials");
+        Path firstRunOutputDir = Files.createDirectories(tempDir.resolve("FirstRun"));
+        Path incrementalOutputDir = Files.createDirectories(tempDir.resolve("Incremental"));
+        Path fullOutputDir = Files.createDirectories(tempDir.resolve("Full"));
+        Random random = new Random(99);
+        for (int file = 0; file < 3; file++) {
+            writeInputFile(inputDir.resolve("cards-" + file + ".json"), randomCards(random, 200));
+        }
+        AppConfig storeConfig = AppConfig.builder(1, 2).partialStoreDir(partialStoreDir.toString()).build();
+        new DataProcessor(storeConfig, inputDir.toString(), firstRunOutputDir.toString()).processFiles();
+
+        Path changedFile = inputDir.resolve("cards-1.json");
+        writeInputFile(changedFile, randomCards(random, 150));
+        Files.setLastModifiedTime(changedFile, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+
+        // --- Act: Aggregate again with the store, and once from scratch ---
+        new DataProcessor(storeConfig, inputDir.toString(), incrementalOutputDir.toString()).processFiles();
+        new DataProcessor(new AppConfig(1, 2), inputDir.toString(), fullOutputDir.toString()).processFiles();
+
+        // --- Assert ---
+        assertThat(singleFile(incrementalOutputDir)).hasSameBinaryContentAs(singleFile(fullOutputDir));
+        try (var partials = Files.list(partialStoreDir)) {
+            assertThat(partials.toList()).hasSize(3);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write binary output that reads back as the JSON output")
+    void testProcessFiles_WithBinaryOutputFormats_ShouldReadBackAsJsonOutput(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: One input file, aggregated once as JSON ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Path jsonOutputDir = Files.createDirectories(tempDir.resolve("Json"));
+        writeInputFile(inputDir.resolve("cards.json"), randomCards(new Random(5), 300));
+        new DataProcessor(new AppConfig(1, 2), inputDir.toString(), jsonOutputDir.toString()).processFiles();
+        String jsonOutput = Files.readString(singleFile(jsonOutputDir));
+        ObjectMapper jsonMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        for (OutputFormat format : List.of(OutputFormat.SMILE, OutputFormat.CBOR)) {
+            // --- Act ---
+            Path binaryOutputDir = Files.createDirectories(tempDir.resolve(format.name()));
+            new DataProcessor(AppConfig.builder(1, 2).outputFormat(format).build(),
+                    inputDir.toString(), binaryOutputDir.toString()).processFiles();
+            Path binaryOutput = singleFile(binaryOutputDir);
+
+            // --- Assert ---
+            assertThat(binaryOutput.toString()).endsWith(format.extension());
+            assertThat(Files.size(binaryOutput)).isLessThan(jsonOutput.length());
+            assertThat(jsonMapper.writeValueAsString(OutputFileReader.read(binaryOutput))).isEqualTo(jsonOutput);
+        }
+    }
+
+    @Test
+    @DisplayName("Should count a card found in several Mode 2 input files once, keeping its last occurrence")
+    void testProcessFiles_WithDedup_ShouldKeepLastOccurrenceOfEachCard(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: Card 1001 is in both files; a.json is the newer file but comes first by name ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        writeInputFile(inputDir.resolve("a.json"), List.of(
+                card("ACC1", "debit-card", "1001", "10.00"),
+                card("ACC1", "debit-card", "1002", "5.00")));
+        writeInputFile(inputDir.resolve("b.json"), List.of(
+                card("ACC1", "debit-card", "1001", "30.00"),
+                card("ACC2", "prepaid-card", "2001", "7.00")));
+        Files.setLastModifiedTime(inputDir.resolve("b.json"), FileTime.fromMillis(1_000_000_000_000L));
+        Files.setLastModifiedTime(inputDir.resolve("a.json"), FileTime.fromMillis(2_000_000_000_000L));
+
+        // --- Act & Assert: Without dedup, by file name (two threads) and by modification time ---
+        assertThat(debitTotal(aggregateWithDedup(tempDir, inputDir, 1, CardDedup.NONE))).isEqualTo("45.00");
+        assertThat(debitTotal(aggregateWithDedup(tempDir, inputDir, 2, CardDedup.FILE_ORDER))).isEqualTo("35.00");
+        OutputFile byMtime = aggregateWithDedup(tempDir, inputDir, 1, CardDedup.MTIME);
+        assertThat(debitTotal(byMtime)).isEqualTo("15.00");
+        assertThat(byMtime.getAccounts().getFirst().getProducts().getFirst().getDetails())
+                .extracting(CardDetail::getCardNumber)
+                .containsExactly("1001", "1002");
+        assertThat(byMtime.getAccounts().getLast().getProducts().getFirst().getTotalBalance()).isEqualTo("7.00");
+    }
+
+    @Test
+    @DisplayName("Should look up single accounts through the index written next to the output in every mode")
+    void testAccountLookup_WithOutputIndex_ShouldReturnSameAccountsAsFullRead(@TempDir Path tempDir) throws IOException {
+        // --- Arrange ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        writeInputFile(inputDir.resolve("cards.json"), randomCards(new Random(31), 400));
+
+        for (int mode = 1; mode <= 4; mode++) {
+            // --- Act: Mode 2 writes compact JSON, the other modes indented JSON ---
+            Path outputDir = Files.createDirectories(tempDir.resolve("Output-" + mode));
+            AppConfig config = AppConfig.builder(2, mode).prettyPrint(mode != 2).outputIndex(true).build();
+            new DataProcessor(config, inputDir.toString(), outputDir.toString()).processFiles();
+
+            // --- Assert ---
+            Path outputPath;
+            try (var files = Files.list(outputDir)) {
+                outputPath = files.filter(file -> !file.toString().endsWith(".idx")).findFirst().orElseThrow();
+            }
+            assertThat(outputDir.resolve(outputPath.getFileName() + ".idx")).exists();
+            OutputFile fullRead = OutputFileReader.read(outputPath);
+            try (AccountLookup lookup = AccountLookup.open(outputPath)) {
+                assertThat(lookup.accountCount()).isEqualTo(fullRead.getAccountTotal());
+                for (Account account : fullRead.getAccounts()) {
+                    assertThat(lookup.find(account.getAccountNumber())).get()
+                            .usingRecursiveComparison().isEqualTo(account);
+                }
+                assertThat(lookup.find("NO-SUCH-ACCOUNT")).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should split Mode 2 output into shards whose accounts add up to the single file")
+    void testProcessFiles_WithShards_ShouldPartitionAccountsByRange(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: Three input files, aggregated once into a single file ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Path singleOutputDir = Files.createDirectories(tempDir.resolve("Single"));
+        Random random = new Random(11);
+        for (int file = 0; file < 3; file++) {
+            writeInputFile(inputDir.resolve("cards-" + file + ".json"), randomCards(random, 200));
+        }
+        new DataProcessor(new AppConfig(1, 2), inputDir.toString(), singleOutputDir.toString()).processFiles();
+        String singleOutput = Files.readString(singleFile(singleOutputDir));
+        ObjectMapper jsonMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+        // --- Act & Assert: Once in memory and once with a budget that forces spilling ---
+        for (long memoryBudgetBytes : new long[]{0, 4096}) {
+            Path shardedOutputDir = Files.createDirectories(tempDir.resolve("Sharded-" + memoryBudgetBytes));
+            new DataProcessor(AppConfig.builder(1, 2).memoryBudgetBytes(memoryBudgetBytes).shards(3).build(),
+                    inputDir.toString(), shardedOutputDir.toString()).processFiles();
+
+            Path manifestPath;
+            try (var files = Files.list(shardedOutputDir)) {
+                manifestPath = files.filter(file -> file.toString().endsWith(".manifest.json")).findFirst().orElseThrow();
+            }
+            ShardManifest manifest = jsonMapper.readValue(manifestPath.toFile(), ShardManifest.class);
+            List<Account> shardedAccounts = new ArrayList<>();
+            for (ShardManifest.Shard shard : manifest.shards()) {
+                OutputFile shardOutput = OutputFileReader.read(shardedOutputDir.resolve(shard.file()));
+                assertThat(shardOutput.getAccountTotal()).isEqualTo(shard.accountTotal());
+                assertThat(shardOutput.getAccounts().getFirst().getAccountNumber()).isEqualTo(shard.firstAccount());
+                assertThat(shardOutput.getAccounts().getLast().getAccountNumber()).isEqualTo(shard.lastAccount());
+                shardedAccounts.addAll(shardOutput.getAccounts());
+            }
+            assertThat(manifest.shards()).hasSize(3);
+            assertThat(jsonMapper.writeValueAsString(new OutputFile(manifest.accountTotal(), shardedAccounts)))
+                    .isEqualTo(singleOutput);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write the same Mode 1 output when a large file is split into chunks")
+    void testProcessFiles_WithSkewedFileSizes_ShouldMatchSingleThreadedOutput(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: One file large enough to be split, next to a few small ones ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Path sequentialOutputDir = Files.createDirectories(tempDir.resolve("Sequential"));
+        Path parallelOutputDir = Files.createDirectories(tempDir.resolve("Parallel"));
+        Random random = new Random(17);
+        writeInputFile(inputDir.resolve("large.json"), randomCards(random, 40_000));
+        for (int file = 0; file < 3; file++) {
+            writeInputFile(inputDir.resolve("small-" + file + ".json"), randomCards(random, 100));
+        }
+        assertThat(Files.size(inputDir.resolve("large.json"))).isGreaterThan(4L * 1024 * 1024);
+
+        // --- Act ---
+        new DataProcessor(new AppConfig(1, 1), inputDir.toString(), sequentialOutputDir.toString()).processFiles();
+        new DataProcessor(new AppConfig(4, 1), inputDir.toString(), parallelOutputDir.toString()).processFiles();
+
+        // --- Assert ---
+        for (String name : List.of("large.json", "small-0.json", "small-1.json", "small-2.json")) {
+            assertThat(parallelOutputDir.resolve(name)).hasSameBinaryContentAs(sequentialOutputDir.resolve(name));
+        }
+    }
+
+    @Test
+    @DisplayName("Should write the same output through small pooled buffers with fsync and leave no temporary files")
+    void testProcessFiles_WithSmallOutputBuffers_ShouldMatchDefaultOutput(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: More files than pooled buffers, with buffers much smaller than a file ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Path defaultOutputDir = Files.createDirectories(tempDir.resolve("Default"));
+        Path pooledOutputDir = Files.createDirectories(tempDir.resolve("Pooled"));
+        Random random = new Random(23);
+        for (int file = 0; file < 4; file++) {
+            writeInputFile(inputDir.resolve("cards-" + file + ".json"), randomCards(random, 300));
+        }
+        Files.writeString(pooledOutputDir.resolve("cards-0.json"), "stale output of an earlier run");
+
+        // --- Act ---
+        new DataProcessor(new AppConfig(2, 1), inputDir.toString(), defaultOutputDir.toString()).processFiles();
+        new DataProcessor(AppConfig.builder(2, 1).outputBuffers(1).outputBufferBytes(1024).fsyncOutput(true).build(),
+                inputDir.toString(), pooledOutputDir.toString()).processFiles();
+
+        // --- Assert ---
+        for (int file = 0; file < 4; file++) {
+            String name = "cards-" + file + ".json";
+            assertThat(pooledOutputDir.resolve(name)).hasSameBinaryContentAs(defaultOutputDir.resolve(name));
+        }
+        try (var files = Files.list(pooledOutputDir)) {
+            assertThat(files.map(file -> file.getFileName().toString()).toList())
+                    .containsExactlyInAnyOrder("cards-0.json", "cards-1.json", "cards-2.json", "cards-3.json");
+        }
+    }
+
+    @Test
+    @DisplayName("Should read gzip input and write gzip output that decompresses to the plain output")
+    void testProcessFiles_WithGzipInputAndOutput_ShouldMatchPlainOutput(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: The same cards as plain and as gzip input, enough for several compressed blocks ---
+        Path plainInputDir = Files.createDirectories(tempDir.resolve("PlainInput"));
+        Path gzipInputDir = Files.createDirectories(tempDir.resolve("GzipInput"));
+        Path plainOutputDir = Files.createDirectories(tempDir.resolve("PlainOutput"));
+        Path gzipOutputDir = Files.createDirectories(tempDir.resolve("GzipOutput"));
+        writeInputFile(plainInputDir.resolve("cards.json"), randomCards(new Random(29), 20_000));
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzipInputDir.resolve("cards.json.gz")))) {
+            Files.copy(plainInputDir.resolve("cards.json"), out);
+        }
+
+        // --- Act ---
+        new DataProcessor(new AppConfig(2, 1), plainInputDir.toString(), plainOutputDir.toString()).processFiles();
+        new DataProcessor(AppConfig.builder(2, 1).outputCompression(Compression.GZIP).build(),
+                gzipInputDir.toString(), gzipOutputDir.toString()).processFiles();
+
+        // --- Assert ---
+        byte[] plainOutput = Files.readAllBytes(plainOutputDir.resolve("cards.json"));
+        assertThat(plainOutput.length).isGreaterThan(1024 * 1024);
+        assertThat(singleFile(gzipOutputDir).getFileName().toString()).isEqualTo("cards.json.gz");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(gzipOutputDir.resolve("cards.json.gz")))) {
+            assertThat(in.readAllBytes()).isEqualTo(plainOutput);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write a run report and publish the run over JMX")
+    void testProcessFiles_WithRunReport_ShouldCountFilesCardsAndBytes(@TempDir Path tempDir) throws Exception {
+        // --- Arrange: Two input files processed individually ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Path outputDir = Files.createDirectories(tempDir.resolve("Output"));
+        Random random = new Random(3);
+        writeInputFile(inputDir.resolve("first.json"), randomCards(random, 120));
+        writeInputFile(inputDir.resolve("second.json"), randomCards(random, 80));
+
+        // --- Act ---
+        new DataProcessor(AppConfig.builder(2, 1).runReport(true).build(), inputDir.toString(), outputDir.toString())
+                .processFiles();
+
+        // --- Assert ---
+        Path reportPath;
+        try (var files = Files.list(outputDir)) {
+            reportPath = files.filter(file -> file.getFileName().toString().startsWith("run-report_")).findFirst().orElseThrow();
+        }
+        RunReport report = new ObjectMapper().readValue(reportPath.toFile(), RunReport.class);
+        assertThat(report.filesProcessed()).isEqualTo(2);
+        assertThat(report.cardsProcessed()).isEqualTo(200);
+        assertThat(report.bytesRead())
+                .isEqualTo(Files.size(inputDir.resolve("first.json")) + Files.size(inputDir.resolve("second.json")));
+        assertThat(report.bytesWritten())
+                .isEqualTo(Files.size(outputDir.resolve("first.json")) + Files.size(outputDir.resolve("second.json")));
+        assertThat(report.phaseNanos()).containsOnlyKeys("read", "parse", "transform", "serialize", "write");
+        assertThat(report.phaseNanos().get("parse")).isPositive();
+        assertThat(report.files()).extracting(RunReport.FileReport::output)
+                .containsExactlyInAnyOrder("first.json", "second.json");
+
+        ObjectName name = new ObjectName("org.example:type=RunMetrics");
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "CardsProcessed")).isEqualTo(200L);
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Running")).isEqualTo(false);
+    }
+
+    @Test
+    @DisplayName("Should keep at most MaxOpenFiles files in flight in Mode 3, from reading until written")
+    void testProcessFiles_WithMoreFilesThanMaxOpenFiles_ShouldBoundFilesInFlight(@TempDir Path tempDir)
+            throws Exception {
+        // --- Arrange: Many more files than may be in flight, and a single CPU thread they all queue for ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Path outputDir = Files.createDirectories(tempDir.resolve("Output"));
+        Random random = new Random(11);
+        for (int file = 0; file < 24; file++) {
+            writeInputFile(inputDir.resolve("cards-" + file + ".json"), randomCards(random, 300));
+        }
+        int maxOpenFiles = 2;
+
+        // --- Act ---
+        new DataProcessor(AppConfig.builder(1, 3).maxOpenFiles(maxOpenFiles).runReport(true).build(),
+                inputDir.toString(), outputDir.toString()).processFiles();
+
+        // --- Assert: A finishing file still holds its place, so the others waiting for the CPU thread are fewer ---
+        Path reportPath;
+        try (var files = Files.list(outputDir)) {
+            reportPath = files.filter(file -> file.getFileName().toString().startsWith("run-report_")).findFirst().orElseThrow();
+        }
+        RunReport report = new ObjectMapper().readValue(reportPath.toFile(), RunReport.class);
+        assertThat(report.filesProcessed()).isEqualTo(24);
+        assertThat(report.peakQueueDepth()).isLessThan(maxOpenFiles);
+    }
+
+    @Test
+    @DisplayName("Should produce the same output when transforming in parallel as sequentially")
+    void testTransformData_WithMultipleThreads_ShouldMatchSequentialOutput() throws IOException {
+        // --- Arrange: Enough cards to be split into several chunks ---
+        List<Card> cards = randomCards(new Random(7), 50_000);
+        DataProcessor parallelProcessor = new DataProcessor(new AppConfig(4, 2), "Input", "Output");
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // --- Act ---
+        String sequential = objectMapper.writeValueAsString(dataProcessor.transformData(cards));
+        String parallel = objectMapper.writeValueAsString(parallelProcessor.transformData(cards));
+
+        // --- Assert ---
+        assertThat(parallel).isEqualTo(sequential);
+    }
+
+    @Test
+    @DisplayName("Should produce the same output from columnar batches as from Card objects")
+    void testTransformData_WithColumnarBatches_ShouldMatchObjectOutput() throws IOException {
+        // --- Arrange: Cards mixing packable values with ones that must keep their original strings ---
+        Random random = new Random(2024);
+        List<Card> cards = randomCards(random, 20_000);
+        String[] cardNumbers = {"0012", "12", "120", "1200", "12a", "1234567890123456789", "", "000"};
+        String[] balances = {"+5", "007.50", "-0.00", "-0", "7.", ".5", "1E3", "-12.30", "0.05", "99999999999999999.9"};
+        String[] dates = {"not-a-date", "31022568", "29022567", "2568", "01/01/2568"};
+        for (int i = 0; i < cards.size(); i += 7) {
+            Card card = cards.get(i);
+            card.setCardNumber(cardNumbers[random.nextInt(cardNumbers.length)]);
+            card.setBalance(balances[random.nextInt(balances.length)]);
+            card.setExpireDate(dates[random.nextInt(dates.length)]);
+            card.setProductName("product-" + random.nextInt(40));
+        }
+        DataProcessor columnarProcessor = new DataProcessor(AppConfig.builder(1, 1).columnarBatches(true).build(),
+                "Input", "Output");
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // --- Act ---
+        String objects = objectMapper.writeValueAsString(dataProcessor.transformData(cards));
+        String columnar = objectMapper.writeValueAsString(columnarProcessor.transformData(cards));
+
+        // --- Assert ---
+        assertThat(columnar).isEqualTo(objects);
+    }
+
+    private static OutputFile aggregateWithDedup(Path tempDir, Path inputDir, int threads, CardDedup dedup)
+            throws IOException {
+        Path outputDir = Files.createDirectories(tempDir.resolve("Output-" + dedup + "-" + threads));
+        new DataProcessor(AppConfig.builder(threads, 2).dedup(dedup).build(),
+                inputDir.toString(), outputDir.toString()).processFiles();
+        return OutputFileReader.read(singleFile(outputDir));
+    }
+
+    private static String debitTotal(OutputFile outputFile) {
+        return outputFile.getAccounts().getFirst().getProducts().getFirst().getTotalBalance();
+    }
+
+    private static Card card(String accountNumber, String productName, String cardNumber, String balance) {
+        Card card = new Card();
+        card.setAccountNumber(accountNumber);
+        card.setProductName(productName);
+        card.setCardNumber(cardNumber);
+        card.setBalance(balance);
+        card.setExpireDate("01012568");
+        return card;
+    }
+
+    private static List<Card> randomCards(Random random, int count) {
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Card card = new Card();
+            card.setAccountNumber("ACC" + random.nextInt(25));
+            card.setProductName("product-" + random.nextInt(6));
+            card.setCardNumber(String.valueOf(1_000_000 + random.nextInt(1_000)));
+            card.setBalance(random.nextInt(10_000) + "." + random.nextInt(10) + random.nextInt(10));
+            card.setExpireDate(String.format("01%02d25%02d", 1 + random.nextInt(12), 60 + random.nextInt(15)));
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    private static void writeInputFile(Path path, List<Card> cards) throws IOException {
+        InputFile inputFile = new InputFile();
+        inputFile.setCardTotal(cards.size());
+        inputFile.setCards(cards);
+        new ObjectMapper().writeValue(path.toFile(), inputFile);
+    }
+
+    private static Path singleFile(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            List<Path> paths = files.toList();
+            assertThat(paths).hasSize(1);
+            return paths.get(0);
+        }
+    }
+}
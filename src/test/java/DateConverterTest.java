@@ -0,0 +1,79 @@
+import org.example.DateConverter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the DateConverter class.
+ * The hand-written parser is checked against the DateTimeFormatter conversion it replaces.
+ */
+class DateConverterTest {
+
+    private static final DateTimeFormatter INPUT_DATE_FORMAT = DateTimeFormatter.ofPattern("ddMMyyyy");
+    private static final DateTimeFormatter OUTPUT_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    @Test
+    @DisplayName("Should convert every day and month combination like the DateTimeFormatter path")
+    void testConvert_WithAllDayMonthCombinations_ShouldMatchFormatter() {
+        DateConverter converter = new DateConverter(0);
+        for (int year : List.of(2400, 2543, 2544, 2560, 2563, 2567, 2568, 2600, 2643, 9999)) {
+            for (int month = 0; month <= 13; month++) {
+                for (int day = 0; day <= 32; day++) {
+                    String date = String.format("%02d%02d%04d", day, month, year);
+                    assertThat(converter.convert(date)).as(date).isEqualTo(referenceConvert(date));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should return unparseable dates unchanged and count them")
+    void testConvert_WithInvalidDates_ShouldReturnInputAndCountFailures() {
+        DateConverter converter = new DateConverter();
+        List<String> invalidDates = List.of("bad", "", "3202256x", "01132568", "00012568", "0101256", "01010000");
+
+        for (String date : invalidDates) {
+            assertThat(converter.convert(date)).as(date).isEqualTo(date).isEqualTo(referenceConvert(date));
+        }
+        converter.convert("bad");
+
+        assertThat(converter.parseFailures()).isEqualTo(invalidDates.size() + 1);
+    }
+
+    @Test
+    @DisplayName("Should match the DateTimeFormatter path for layouts outside the fast path")
+    void testConvert_WithUnusualLayouts_ShouldMatchFormatter() {
+        DateConverter converter = new DateConverter();
+        for (String date : List.of("010925680", "29022567", "01010543", "01010544", "31122568")) {
+            assertThat(converter.convert(date)).as(date).isEqualTo(referenceConvert(date));
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve repeated dates from the cache")
+    void testConvert_WithRepeatedDate_ShouldHitCache() {
+        DateConverter converter = new DateConverter();
+
+        converter.convert("01092568");
+        converter.convert("01092568");
+        converter.convert("01092568");
+
+        assertThat(converter.convert("01092568")).isEqualTo("2025-09-01");
+        assertThat(converter.cacheHits()).isEqualTo(3);
+        assertThat(converter.parseFailures()).isZero();
+    }
+
+    private static String referenceConvert(String date) {
+        try {
+            return LocalDate.parse(date, INPUT_DATE_FORMAT).minusYears(543).format(OUTPUT_DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            return date;
+        }
+    }
+}
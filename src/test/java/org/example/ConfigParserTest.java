@@ -0,0 +1,139 @@
+package org.example;
+
+import org.example.model.AppConfig;
+import org.example.model.CardDedup;
+import org.example.model.Compression;
+import org.example.model.OutputFormat;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the ConfigParser class.
+ */
+class ConfigParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should leave every optional setting at its default when only Thread and Mode are given")
+    void testParse_WithRequiredTagsOnly_ShouldUseDefaults() throws IOException {
+        // --- Act ---
+        AppConfig config = ConfigParser.parse(configFile("<Thread>3</Thread><Mode>2</Mode>"));
+
+        // --- Assert ---
+        assertThat(config).isEqualTo(AppConfig.builder(3, 2).build());
+    }
+
+    @Test
+    @DisplayName("Should read every tag into its setting")
+    void testParse_WithEveryTag_ShouldSetEverySetting() throws IOException {
+        // --- Arrange ---
+        String tags = """
+                <Thread>6</Thread>
+                <Mode>4</Mode>
+                <PrettyPrint>false</PrettyPrint>
+                <MemoryBudgetMb>128</MemoryBudgetMb>
+                <MaxOpenFiles>8</MaxOpenFiles>
+                <ReaderThreads>3</ReaderThreads>
+                <WriterThreads>5</WriterThreads>
+                <QueueCapacity>7</QueueCapacity>
+                <MmapThresholdMb>0</MmapThresholdMb>
+                <PartialStoreDir>partials</PartialStoreDir>
+                <BatchMaxFiles>9</BatchMaxFiles>
+                <BatchWindowMs>0</BatchWindowMs>
+                <WriteQuietMs>250</WriteQuietMs>
+                <OutputFormat>smile</OutputFormat>
+                <ColumnarBatches>true</ColumnarBatches>
+                <Shards>4</Shards>
+                <RunReport>true</RunReport>
+                <OutputBuffers>0</OutputBuffers>
+                <OutputBufferKb>64</OutputBufferKb>
+                <FsyncOutput>true</FsyncOutput>
+                <OutputCompression>gzip</OutputCompression>
+                <Dedup>file-order</Dedup>
+                <OutputIndex>true</OutputIndex>
+                """;
+
+        // --- Act ---
+        AppConfig config = ConfigParser.parse(configFile(tags));
+
+        // --- Assert ---
+        assertThat(config).isEqualTo(AppConfig.builder(6, 4)
+                .prettyPrint(false)
+                .memoryBudgetBytes(128L * 1024 * 1024)
+                .maxOpenFiles(8)
+                .readerThreads(3)
+                .writerThreads(5)
+                .queueCapacity(7)
+                .mmapThresholdBytes(0)
+                .partialStoreDir("partials")
+                .batchMaxFiles(9)
+                .batchWindowMs(0)
+                .writeQuietMs(250)
+                .outputFormat(OutputFormat.SMILE)
+                .columnarBatches(true)
+                .shards(4)
+                .runReport(true)
+                .outputBuffers(0)
+                .outputBufferBytes(64 * 1024)
+                .fsyncOutput(true)
+                .outputCompression(Compression.GZIP)
+                .dedup(CardDedup.FILE_ORDER)
+                .outputIndex(true)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Should reject a file without a Thread or Mode tag")
+    void testParse_WithMissingRequiredTag_ShouldReturnNull() throws IOException {
+        // --- Act & Assert ---
+        assertThat(ConfigParser.parse(configFile("<Mode>1</Mode>"))).isNull();
+        assertThat(ConfigParser.parse(configFile("<Thread>1</Thread>"))).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject values that are not numbers or lie outside their setting's range")
+    void testParse_WithValueOutOfRange_ShouldReturnNull() throws IOException {
+        // --- Arrange ---
+        List<String> invalidTags = List.of(
+                "<Thread>0</Thread><Mode>1</Mode>",
+                "<Thread>-2</Thread><Mode>1</Mode>",
+                "<Thread>many</Thread><Mode>1</Mode>",
+                "<Thread>1</Thread><Mode>0</Mode>",
+                "<Thread>1</Thread><Mode>5</Mode>",
+                "<Thread>1</Thread><Mode>1</Mode><MemoryBudgetMb>-1</MemoryBudgetMb>",
+                "<Thread>1</Thread><Mode>1</Mode><MemoryBudgetMb>9223372036854775807</MemoryBudgetMb>",
+                "<Thread>1</Thread><Mode>1</Mode><MaxOpenFiles>0</MaxOpenFiles>",
+                "<Thread>1</Thread><Mode>1</Mode><ReaderThreads>0</ReaderThreads>",
+                "<Thread>1</Thread><Mode>1</Mode><WriterThreads>0</WriterThreads>",
+                "<Thread>1</Thread><Mode>1</Mode><QueueCapacity>0</QueueCapacity>",
+                "<Thread>1</Thread><Mode>1</Mode><MmapThresholdMb>-1</MmapThresholdMb>",
+                "<Thread>1</Thread><Mode>1</Mode><BatchMaxFiles>0</BatchMaxFiles>",
+                "<Thread>1</Thread><Mode>1</Mode><BatchWindowMs>-1</BatchWindowMs>",
+                "<Thread>1</Thread><Mode>1</Mode><WriteQuietMs>-1</WriteQuietMs>",
+                "<Thread>1</Thread><Mode>1</Mode><Shards>0</Shards>",
+                "<Thread>1</Thread><Mode>1</Mode><OutputBuffers>-1</OutputBuffers>",
+                "<Thread>1</Thread><Mode>1</Mode><OutputBufferKb>0</OutputBufferKb>",
+                "<Thread>1</Thread><Mode>1</Mode><OutputBufferKb>2097152</OutputBufferKb>");
+
+        // --- Act & Assert ---
+        for (String tags : invalidTags) {
+            assertThat(ConfigParser.parse(configFile(tags))).as(tags).isNull();
+        }
+    }
+
+    private File configFile(String tags) throws IOException {
+        return Files.writeString(tempDir.resolve("Configuration.xml"),
+                "<Configuration>" + tags + "</Configuration>").toFile();
+    }
+}
@@ -0,0 +1,201 @@
+package org.example;
+
+import org.example.model.AppConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the IngestDaemon class.
+ * Each test drives the daemon's loop steps directly instead of waiting for watch events, and a
+ * processor stand-in records the batches it is given.
+ */
+class IngestDaemonTest {
+
+    private static final long WRITE_QUIET_MS = 200;
+    private static final long LONG_MS = 60_000;
+
+    @TempDir
+    Path inputDir;
+
+    private final List<List<String>> batches = new ArrayList<>();
+    private final List<AppConfig> appliedConfigs = new ArrayList<>();
+
+    @Test
+    @DisplayName("Should hold a file back until its size and modification time have been stable for the quiet period")
+    void testCollectCompleteFiles_WithFileStillBeingWritten_ShouldWaitForQuietPeriod() throws Exception {
+        // --- Arrange ---
+        IngestDaemon daemon = daemon(1, LONG_MS);
+        Path file = write("cards-0.json", "{\"cardTotal\":0,");
+
+        // --- Act: The file grows again after a quiet period has passed since it was first seen ---
+        daemon.scanDirectory();
+        step(daemon);
+        List<List<String>> whileNew = List.copyOf(batches);
+        waitQuietPeriod();
+        Files.writeString(file, "\"cards\":[]}", StandardOpenOption.APPEND);
+        step(daemon);
+        List<List<String>> afterGrowing = List.copyOf(batches);
+        waitQuietPeriod();
+        step(daemon);
+
+        // --- Assert ---
+        assertThat(whileNew).isEmpty();
+        assertThat(afterGrowing).isEmpty();
+        assertThat(batches).containsExactly(List.of("cards-0.json"));
+    }
+
+    @Test
+    @DisplayName("Should process the batch as soon as it holds the maximum number of files")
+    void testProcessBatchIfDue_WithBatchFull_ShouldProcessBeforeWindowEnds() throws Exception {
+        // --- Arrange ---
+        IngestDaemon daemon = daemon(2, LONG_MS);
+        write("cards-0.json", "{}");
+        awaitComplete(daemon);
+        List<List<String>> withOneFile = List.copyOf(batches);
+
+        // --- Act ---
+        write("cards-1.json", "{}");
+        awaitComplete(daemon);
+
+        // --- Assert ---
+        assertThat(withOneFile).isEmpty();
+        assertThat(batches).containsExactly(List.of("cards-0.json", "cards-1.json"));
+    }
+
+    @Test
+    @DisplayName("Should process a batch that is not full once its first file has waited for the batch window")
+    void testProcessBatchIfDue_WithWindowPassed_ShouldProcessPartialBatch() throws Exception {
+        // --- Arrange ---
+        long batchWindowMs = 300;
+        IngestDaemon daemon = daemon(10, batchWindowMs);
+        write("cards-0.json", "{}");
+        awaitComplete(daemon);
+        List<List<String>> beforeWindow = List.copyOf(batches);
+
+        // --- Act ---
+        Thread.sleep(batchWindowMs + 50);
+        daemon.processBatchIfDue();
+
+        // --- Assert ---
+        assertThat(beforeWindow).isEmpty();
+        assertThat(batches).containsExactly(List.of("cards-0.json"));
+    }
+
+    @Test
+    @DisplayName("Should add a file that changes while waiting in the batch only once")
+    void testCollectCompleteFiles_WithFileChangedWhileBatched_ShouldBatchItOnce() throws Exception {
+        // --- Arrange ---
+        long batchWindowMs = 1_000;
+        IngestDaemon daemon = daemon(10, batchWindowMs);
+        Path file = write("cards-0.json", "{}");
+        awaitComplete(daemon);
+
+        // --- Act ---
+        Files.writeString(file, " ", StandardOpenOption.APPEND);
+        awaitComplete(daemon);
+        Thread.sleep(batchWindowMs);
+        daemon.processBatchIfDue();
+
+        // --- Assert ---
+        assertThat(batches).containsExactly(List.of("cards-0.json"));
+    }
+
+    @Test
+    @DisplayName("Should skip a processed file that is seen again unchanged, but process it again once it changes")
+    void testCollectCompleteFiles_WithProcessedFile_ShouldOnlyReprocessWhenChanged() throws Exception {
+        // --- Arrange ---
+        IngestDaemon daemon = daemon(1, LONG_MS);
+        Path file = write("cards-0.json", "{}");
+        awaitComplete(daemon);
+
+        // --- Act: Seen again unchanged, as after a rescan of the directory, then rewritten ---
+        awaitComplete(daemon);
+        List<List<String>> afterRescan = List.copyOf(batches);
+        Files.writeString(file, "{ }");
+        awaitComplete(daemon);
+
+        // --- Assert ---
+        assertThat(afterRescan).containsExactly(List.of("cards-0.json"));
+        assertThat(batches).containsExactly(List.of("cards-0.json"), List.of("cards-0.json"));
+    }
+
+    @Test
+    @DisplayName("Should switch to a reloaded configuration, but keep the current one when the file is invalid")
+    void testReloadConfig_WithInvalidFile_ShouldKeepPreviousConfig() throws Exception {
+        // --- Arrange ---
+        IngestDaemon daemon = daemon(1, LONG_MS);
+        Path configFile = inputDir.resolve("Configuration.xml");
+
+        // --- Act ---
+        Files.writeString(configFile,
+                "<Configuration><Thread>3</Thread><Mode>3</Mode><BatchMaxFiles>1</BatchMaxFiles></Configuration>");
+        daemon.reloadConfig();
+        Files.writeString(configFile,
+                "<Configuration><Thread>0</Thread><Mode>3</Mode><BatchMaxFiles>1</BatchMaxFiles></Configuration>");
+        daemon.reloadConfig();
+        write("cards-0.json", "{}");
+        awaitComplete(daemon);
+
+        // --- Assert: The batch still runs on the last valid configuration ---
+        assertThat(appliedConfigs).extracting(AppConfig::threads).containsExactly(1, 3);
+        assertThat(batches).containsExactly(List.of("cards-0.json"));
+    }
+
+    private IngestDaemon daemon(int batchMaxFiles, long batchWindowMs) {
+        AppConfig config = AppConfig.builder(1, 1)
+                .batchMaxFiles(batchMaxFiles)
+                .batchWindowMs(batchWindowMs)
+                .writeQuietMs(WRITE_QUIET_MS)
+                .build();
+        return new IngestDaemon(inputDir, inputDir.resolve("Configuration.xml"), config, RecordingProcessor::new);
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(inputDir.resolve(name), content);
+    }
+
+    /**
+     * Sees every input file, as at start-up or after lost watch events, and lets it become complete.
+     */
+    private void awaitComplete(IngestDaemon daemon) throws Exception {
+        daemon.scanDirectory();
+        step(daemon);
+        waitQuietPeriod();
+        step(daemon);
+    }
+
+    private static void step(IngestDaemon daemon) {
+        daemon.collectCompleteFiles();
+        daemon.processBatchIfDue();
+    }
+
+    private static void waitQuietPeriod() throws InterruptedException {
+        Thread.sleep(WRITE_QUIET_MS + 50);
+    }
+
+    /**
+     * Records the names of each batch's files instead of processing them.
+     */
+    private class RecordingProcessor extends DataProcessor {
+        RecordingProcessor(AppConfig config) {
+            super(config, inputDir.toString(), inputDir.resolve("Output").toString());
+            appliedConfigs.add(config);
+        }
+
+        @Override
+        public void processNewFiles(List<File> newFiles) {
+            batches.add(newFiles.stream().map(File::getName).toList());
+        }
+    }
+}
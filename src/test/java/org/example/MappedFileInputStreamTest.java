@@ -0,0 +1,152 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.model.AppConfig;
+import org.example.model.Card;
+import org.example.model.InputFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for reading files through memory-mapped windows.
+ * Windows of a few bytes make every file span many of them.
+ */
+class MappedFileInputStreamTest {
+
+    @Test
+    @DisplayName("Should read the same bytes as the file across window boundaries, then report the end of the file")
+    void testRead_WithTinyWindows_ShouldMatchFileContent(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: 1000 bytes read through 7-byte windows ---
+        byte[] content = new byte[1000];
+        new Random(1).nextBytes(content);
+        Path file = Files.write(tempDir.resolve("data.bin"), content);
+
+        // --- Act: Alternate single bytes with 13-byte reads, which keep crossing window boundaries ---
+        ByteArrayOutputStream read = new ByteArrayOutputStream();
+        int eofByte;
+        int eofChunk;
+        try (MappedFileInputStream in = new MappedFileInputStream(file, 7)) {
+            byte[] chunk = new byte[13];
+            while (true) {
+                int b = in.read();
+                if (b < 0) {
+                    break;
+                }
+                read.write(b);
+                int count = in.read(chunk, 0, chunk.length);
+                if (count < 0) {
+                    break;
+                }
+                assertThat(count).isBetween(1, 7);
+                read.write(chunk, 0, count);
+            }
+            eofByte = in.read();
+            eofChunk = in.read(chunk, 0, chunk.length);
+        }
+
+        // --- Assert ---
+        assertThat(read.toByteArray()).isEqualTo(content);
+        assertThat(eofByte).isEqualTo(-1);
+        assertThat(eofChunk).isEqualTo(-1);
+    }
+
+    @Test
+    @DisplayName("Should report the end of an empty file")
+    void testRead_WithEmptyFile_ShouldReturnEndOfFile(@TempDir Path tempDir) throws IOException {
+        // --- Arrange ---
+        Path file = Files.createFile(tempDir.resolve("empty.bin"));
+
+        // --- Act & Assert ---
+        try (MappedFileInputStream in = new MappedFileInputStream(file, 7)) {
+            assertThat(in.read()).isEqualTo(-1);
+            assertThat(in.read(new byte[4], 0, 4)).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    @DisplayName("Should parse the same cards from a memory-mapped file as from buffered reads")
+    void testCardStreamReader_WithMappedWindows_ShouldMatchBufferedRead(@TempDir Path tempDir) throws IOException {
+        // --- Arrange: A card file many times larger than the 64-byte windows ---
+        Path file = tempDir.resolve("cards.json");
+        writeInputFile(file, randomCards(new Random(9), 300));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // --- Act ---
+        List<Card> buffered = new ArrayList<>();
+        List<Card> mapped = new ArrayList<>();
+        long bufferedCount = new CardStreamReader(objectMapper, 0).read(file.toFile(), buffered::add);
+        long mappedCount = new CardStreamReader(objectMapper, 1, 64).read(file.toFile(), mapped::add);
+
+        // --- Assert ---
+        assertThat(Files.size(file)).isGreaterThan(64 * 100);
+        assertThat(mappedCount).isEqualTo(bufferedCount).isEqualTo(300);
+        assertThat(objectMapper.writeValueAsBytes(mapped)).isEqualTo(objectMapper.writeValueAsBytes(buffered));
+    }
+
+    @Test
+    @DisplayName("Should write the same output in every mode when input files are memory-mapped")
+    void testProcessFiles_WithMmapThreshold_ShouldMatchBufferedOutput(@TempDir Path tempDir) throws IOException {
+        // --- Arrange ---
+        Path inputDir = Files.createDirectories(tempDir.resolve("Input"));
+        Random random = new Random(4);
+        for (int file = 0; file < 3; file++) {
+            writeInputFile(inputDir.resolve("cards-" + file + ".json"), randomCards(random, 200));
+        }
+
+        for (int mode = 1; mode <= 4; mode++) {
+            // --- Act: Once buffered and once with every file above the mmap threshold ---
+            Path bufferedOutputDir = Files.createDirectories(tempDir.resolve("Buffered-" + mode));
+            Path mappedOutputDir = Files.createDirectories(tempDir.resolve("Mapped-" + mode));
+            new DataProcessor(AppConfig.builder(2, mode).mmapThresholdBytes(0).build(),
+                    inputDir.toString(), bufferedOutputDir.toString()).processFiles();
+            new DataProcessor(AppConfig.builder(2, mode).mmapThresholdBytes(1).build(),
+                    inputDir.toString(), mappedOutputDir.toString()).processFiles();
+
+            // --- Assert: Mode 2 names its output after the run time, so outputs are paired in name order ---
+            List<Path> bufferedOutputs = sortedFiles(bufferedOutputDir);
+            List<Path> mappedOutputs = sortedFiles(mappedOutputDir);
+            assertThat(mappedOutputs).hasSameSizeAs(bufferedOutputs).isNotEmpty();
+            for (int i = 0; i < bufferedOutputs.size(); i++) {
+                assertThat(mappedOutputs.get(i)).hasSameBinaryContentAs(bufferedOutputs.get(i));
+            }
+        }
+    }
+
+    private static List<Path> sortedFiles(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<Card> randomCards(Random random, int count) {
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Card card = new Card();
+            card.setAccountNumber("ACC" + random.nextInt(25));
+            card.setProductName("product-" + random.nextInt(6));
+            card.setCardNumber(String.valueOf(1_000_000 + random.nextInt(1_000)));
+            card.setBalance(random.nextInt(10_000) + "." + random.nextInt(10) + random.nextInt(10));
+            card.setExpireDate(String.format("01%02d25%02d", 1 + random.nextInt(12), 60 + random.nextInt(15)));
+            cards.add(card);
+        }
+        return cards;
+    }
+
+    private static void writeInputFile(Path path, List<Card> cards) throws IOException {
+        InputFile inputFile = new InputFile();
+        inputFile.setCardTotal(cards.size());
+        inputFile.setCards(cards);
+        new ObjectMapper().writeValue(path.toFile(), inputFile);
+    }
+}
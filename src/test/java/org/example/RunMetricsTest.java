@@ -0,0 +1,41 @@
+package org.example;
+
+import org.example.model.AppConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the RunMetrics class.
+ */
+class RunMetricsTest {
+
+    @Test
+    @DisplayName("Should count only the date conversions of its own run when the converter is reused")
+    void testFinish_WithReusedDateConverter_ShouldCountConversionsOfThisRunOnly() {
+        // --- Arrange: An earlier run on the same converter ---
+        DateConverter converter = new DateConverter();
+        RunMetrics firstRun = new RunMetrics(new AppConfig(1, 1), converter);
+        converter.convert("01092568");
+        converter.convert("01092568");
+        converter.convert("bad");
+        converter.convert("bad");
+        firstRun.finish();
+
+        // --- Act ---
+        RunMetrics secondRun = new RunMetrics(new AppConfig(1, 1), converter);
+        converter.convert("01092568");
+        converter.convert("bad");
+        long cacheHitsWhileRunning = secondRun.getDateCacheHits();
+        secondRun.finish();
+        converter.convert("bad");
+
+        // --- Assert ---
+        assertThat(firstRun.getDateCacheHits()).isEqualTo(2);
+        assertThat(firstRun.getDateParseFailures()).isEqualTo(2);
+        assertThat(cacheHitsWhileRunning).isEqualTo(2);
+        assertThat(secondRun.getDateCacheHits()).isEqualTo(2);
+        assertThat(secondRun.getDateParseFailures()).isEqualTo(1);
+    }
+}